@@ -0,0 +1,59 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.digitalmind.signaturecartrige.service.impl.PdfUtilServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The wildcard {@code match} family on its own, without any PDF parsing around it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FieldMatchBenchmark {
+
+    @Param({"10", "1000", "5000"})
+    public int fieldCount;
+
+    @Param({"contract_s1_f1", "contract_s1_*", "*_f1?", "c*t*_s*_f*9"})
+    public String pattern;
+
+    private PdfUtilServiceImpl pdfUtilService;
+    private List<String> fieldNames;
+    private List<String> patterns;
+    private String lastFieldName;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pdfUtilService = new PdfUtilServiceImpl();
+        fieldNames = PdfCorpus.fieldNames(fieldCount);
+        patterns = Arrays.asList(pattern, "contract_s2_*", "*_f2?", PdfCorpus.fieldName(fieldCount / 2));
+        lastFieldName = fieldNames.get(fieldNames.size() - 1);
+    }
+
+    @Benchmark
+    public boolean matchName() {
+        return pdfUtilService.match(pattern, lastFieldName);
+    }
+
+    @Benchmark
+    public boolean matchAny() {
+        return pdfUtilService.match(pattern, fieldNames);
+    }
+
+    @Benchmark
+    public Set<String> matchPattern() {
+        return pdfUtilService.match(pattern, (Collection<String>) fieldNames);
+    }
+
+    @Benchmark
+    public Set<String> matchPatterns() {
+        return pdfUtilService.match(patterns, fieldNames);
+    }
+
+}
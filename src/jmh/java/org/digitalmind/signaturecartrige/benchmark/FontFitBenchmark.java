@@ -0,0 +1,60 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.digitalmind.signaturecartrige.dto.FontType;
+import org.digitalmind.signaturecartrige.dto.TextRenderDetails;
+import org.digitalmind.signaturecartrige.service.impl.PdfUtilServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Font fitting of {@code calcRenderDetails} for trace lists that have to shrink from the configured size.
+ * With {@code repeatText} off every invocation measures text it has not seen before, so the line width memo
+ * never hits and only the search itself is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FontFitBenchmark {
+
+    @Param({"3", "20", "100"})
+    public int traceLines;
+
+    @Param({"10", "72"})
+    public float fontSize;
+
+    @Param({"true", "false"})
+    public boolean repeatText;
+
+    private PdfUtilServiceImpl pdfUtilService;
+    private FontType fontType;
+    private List<String> lines;
+    private long invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pdfUtilService = new PdfUtilServiceImpl();
+        fontType = FontType.builder().name("DejaVuSans").size(fontSize).left(20).build();
+        lines = new ArrayList<>();
+        for (int i = 0; i < traceLines; i++) {
+            lines.add("Signed electronically by Maximilian Alexander von Hohenberg-Lichtenstein, step " + i);
+        }
+    }
+
+    @Benchmark
+    public TextRenderDetails calcRenderDetails() {
+        List<String> text = lines;
+        if (!repeatText) {
+            String suffix = " #" + invocation++;
+            text = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                text.add(line + suffix);
+            }
+        }
+        return pdfUtilService.calcRenderDetails(text, fontType, Color.WHITE, Color.WHITE, Color.BLACK, 400, 200);
+    }
+
+}
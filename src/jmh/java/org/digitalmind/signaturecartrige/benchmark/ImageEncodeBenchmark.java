@@ -0,0 +1,100 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.digitalmind.signaturecartrige.dto.FontType;
+import org.digitalmind.signaturecartrige.dto.SignatureCartridgeRequest;
+import org.digitalmind.signaturecartrige.dto.SignatureConfigurationRequest;
+import org.digitalmind.signaturecartrige.dto.SignatureMode;
+import org.digitalmind.signaturecartrige.enumeration.SignatureFieldAppearance;
+import org.digitalmind.signaturecartrige.enumeration.SignatureImageType;
+import org.digitalmind.signaturecartrige.image.ImageEncoder;
+import org.digitalmind.signaturecartrige.image.ImageIoEncoder;
+import org.digitalmind.signaturecartrige.image.PngEncoder;
+import org.digitalmind.signaturecartrige.service.impl.PdfUtilServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PNG encoding of a rendered signature cartridge: {@code ImageIO.write} as {@code createSignatureImage} used to
+ * call it, the cached {@code ImageIO} writer, and {@link PngEncoder} at the given level and filter. The output
+ * size is reported as the {@code outputBytes} counter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ImageEncodeBenchmark {
+
+    @Param({"IMAGE_IO_WRITE", "IMAGE_IO_ENCODER", "PNG_ENCODER"})
+    public String encoder;
+
+    @Param({"1", "4", "6"})
+    public int compressionLevel;
+
+    @Param({"NONE", "ADAPTIVE", "SUB", "UP"})
+    public PngEncoder.Filter filter;
+
+    private BufferedImage cartridge;
+    private ImageEncoder imageEncoder;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OutputSize {
+        public long outputBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        PdfUtilServiceImpl pdfUtilService = new PdfUtilServiceImpl();
+        SignatureConfigurationRequest configuration = SignatureConfigurationRequest.builder()
+                .mode(SignatureMode.TEXT)
+                .signatureFieldAppearance(SignatureFieldAppearance.FULL)
+                .sessionFontType(FontType.builder().name("DejaVuSans").size(14f).left(20).build())
+                .sessionLabel("Session: ")
+                .signatureFontType(FontType.builder().name("DejaVuSans").size(72f).build())
+                .signatureColor("navy")
+                .traceFontType(FontType.builder().name("DejaVuSans").size(10f).left(20).build())
+                .dateFontType(FontType.builder().name("DejaVuSans").size(10f).left(20).build())
+                .dateLabel("Date: ")
+                .newWidth(400)
+                .newHeight(200)
+                .imageType(SignatureImageType.PNG)
+                .build();
+        BufferedImage decoded = ImageIO.read(pdfUtilService.createSignatureImage(SignatureCartridgeRequest.builder()
+                .session("4f0c2a9e-71d3-4b8e-a0f5-2d6c9b1e8a70")
+                .signature("Maximilian Alexander von Hohenberg-Lichtenstein")
+                .trace("Signed electronically by Maximilian Alexander von Hohenberg-Lichtenstein")
+                .trace("IP 192.168.100.200, device 3b9f1c, certificate serial 00:af:31:9c:7e:55")
+                .date("2020-06-15 10:42:17 EEST")
+                .configuration(configuration)
+                .build()).getResource().getInputStream());
+        // as rendered, before encoding
+        cartridge = new BufferedImage(decoded.getWidth(), decoded.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics2D = cartridge.createGraphics();
+        graphics2D.drawImage(decoded, 0, 0, null);
+        graphics2D.dispose();
+
+        switch (encoder) {
+            case "IMAGE_IO_WRITE":
+                imageEncoder = (image, out) -> ImageIO.write(image, "PNG", out);
+                break;
+            case "IMAGE_IO_ENCODER":
+                imageEncoder = new ImageIoEncoder("png", 1f - compressionLevel / 9f, null);
+                break;
+            default:
+                imageEncoder = new PngEncoder(compressionLevel, filter);
+        }
+    }
+
+    @Benchmark
+    public byte[] encode(OutputSize outputSize) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        imageEncoder.encode(cartridge, out);
+        outputSize.outputBytes += out.size();
+        return out.toByteArray();
+    }
+
+}
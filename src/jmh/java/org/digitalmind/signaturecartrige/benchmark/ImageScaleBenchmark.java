@@ -0,0 +1,67 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.digitalmind.signaturecartrige.image.ImageScaler;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downscaling of uploaded signature images to a cartridge sized target, from a scan-sized source up to a phone
+ * photo, for each scaling strategy. {@code TYPE_3BYTE_BGR} is what {@code ImageIO} returns for a JPEG upload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ImageScaleBenchmark {
+
+    @Param({"800", "2000", "4000"})
+    public int sourceWidth;
+
+    @Param({"400"})
+    public int targetWidth;
+
+    @Param({"INT_ARGB", "3BYTE_BGR"})
+    public String imageType;
+
+    @Param({"BILINEAR", "PROGRESSIVE", "AREA_AVERAGING", "NEAREST", "AUTO"})
+    public ImageScaler.Strategy strategy;
+
+    private BufferedImage source;
+    private int targetHeight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int sourceHeight = sourceWidth * 3 / 4;
+        targetHeight = targetWidth * 3 / 4;
+        boolean argb = "INT_ARGB".equals(imageType);
+        source = new BufferedImage(sourceWidth, sourceHeight, argb ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D graphics2D = source.createGraphics();
+        if (!argb) {
+            graphics2D.setColor(Color.WHITE);
+            graphics2D.fillRect(0, 0, sourceWidth, sourceHeight);
+        }
+        graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics2D.setColor(new Color(10, 30, 140));
+        graphics2D.setStroke(new BasicStroke(Math.max(1, sourceWidth / 400f)));
+        Random random = new Random(3);
+        int x = sourceWidth / 10;
+        int y = sourceHeight / 2;
+        for (int i = 0; i < 60; i++) {
+            int nextX = sourceWidth / 10 + random.nextInt(sourceWidth * 8 / 10);
+            int nextY = sourceHeight / 5 + random.nextInt(sourceHeight * 3 / 5);
+            graphics2D.drawLine(x, y, nextX, nextY);
+            x = nextX;
+            y = nextY;
+        }
+        graphics2D.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage scale() {
+        return ImageScaler.scale(source, targetWidth, targetHeight, strategy);
+    }
+
+}
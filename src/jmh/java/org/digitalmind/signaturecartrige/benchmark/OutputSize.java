@@ -0,0 +1,17 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The {@code outputBytes} secondary result of the benchmarks that write a document: the output size of the last
+ * operation of the iteration; every invocation writes the same document.
+ */
+@AuxCounters(AuxCounters.Type.EVENTS)
+@State(Scope.Thread)
+public class OutputSize {
+
+    public long outputBytes;
+
+}
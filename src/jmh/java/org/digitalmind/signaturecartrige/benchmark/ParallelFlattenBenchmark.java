@@ -0,0 +1,59 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
+import org.digitalmind.signaturecartrige.dto.FlattenContentRequest;
+import org.digitalmind.signaturecartrige.service.impl.PdfUtilServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full flatten of large forms, twenty fields per page, split into {@code parallelism} page ranges; a parallelism
+ * of 1 is the sequential flatten. Scaling needs at least as many cores as ranges. The {@code outputBytes}
+ * secondary result reports the size of the written document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ParallelFlattenBenchmark {
+
+    private static final int FIELDS_PER_PAGE = 20;
+
+    @Param({"200", "1000"})
+    public int pageCount;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private PdfUtilServiceImpl pdfUtilService;
+    private byte[] template;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SignatureCartrigeProperties properties = new SignatureCartrigeProperties();
+        properties.getFlatten().setMode(SignatureCartrigeProperties.Flatten.Mode.PARALLEL);
+        properties.getFlatten().setParallelism(parallelism);
+        pdfUtilService = new PdfUtilServiceImpl(properties);
+        template = PdfCorpus.createTemplate(FIELDS_PER_PAGE * pageCount, pageCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pdfUtilService.destroy();
+    }
+
+    @Benchmark
+    public void flatten(OutputSize outputSize) throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        pdfUtilService.flatten(FlattenContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(outputStream)
+                .build());
+        outputSize.outputBytes = outputStream.getByteCount();
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
+import org.digitalmind.signaturecartrige.dto.AddSignatureContentRequest;
+import org.digitalmind.signaturecartrige.dto.PdfFieldPosition;
+import org.digitalmind.signaturecartrige.dto.ReplaceContentRequest;
+import org.digitalmind.signaturecartrige.service.impl.PdfUtilServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full rewrite versus incremental update ({@code appendMode}) for the operations that only touch a few objects.
+ * Besides the time per operation, the {@code outputBytes} secondary result reports the size of the written document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PdfAppendModeBenchmark {
+
+    @Param({"100", "1000"})
+    public int fieldCount;
+
+    @Param({"1", "50"})
+    public int pageCount;
+
+    @Param({"false", "true"})
+    public boolean appendMode;
+
+    private PdfUtilServiceImpl pdfUtilService;
+    private byte[] template;
+    private Map<String, PdfFieldPosition> signatureFields;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SignatureCartrigeProperties properties = new SignatureCartrigeProperties();
+        pdfUtilService = new PdfUtilServiceImpl(properties);
+        template = PdfCorpus.createTemplate(fieldCount, pageCount);
+        signatureFields = Collections.singletonMap("added_signature", PdfFieldPosition.builder()
+                .page(1).left(36).bottom(700).right(216).top(780)
+                .build());
+    }
+
+    @Benchmark
+    public void replace(OutputSize outputSize) throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        pdfUtilService.replace(ReplaceContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(outputStream)
+                .appendMode(appendMode)
+                .formField(PdfCorpus.fieldName(0), "exact")
+                .build());
+        outputSize.outputBytes = outputStream.getByteCount();
+    }
+
+    @Benchmark
+    public void addSignatureFields(OutputSize outputSize) throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        pdfUtilService.addSignatureFields(AddSignatureContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(outputStream)
+                .appendMode(appendMode)
+                .signatureFields(signatureFields)
+                .build());
+        outputSize.outputBytes = outputStream.getByteCount();
+    }
+
+}
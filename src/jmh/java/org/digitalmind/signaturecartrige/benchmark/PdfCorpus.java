@@ -0,0 +1,125 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.*;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the synthetic PDF templates and images used by the benchmarks.
+ * <p>
+ * Every template carries {@code fieldCount} text fields named {@code contract_s<section>_f<index>}
+ * (ten sections) spread over {@code pageCount} pages, plus {@link #SIGNATURE_FIELD_COUNT} blank
+ * signature fields named {@code signature_<index>} on the last page.
+ */
+public final class PdfCorpus {
+
+    public static final int SECTION_COUNT = 10;
+    public static final int SIGNATURE_FIELD_COUNT = 4;
+    private static final int COLUMNS = 10;
+
+    private PdfCorpus() {
+    }
+
+    public static String fieldName(int index) {
+        return "contract_s" + (index % SECTION_COUNT) + "_f" + index;
+    }
+
+    public static String signatureFieldName(int index) {
+        return "signature_" + index;
+    }
+
+    public static List<String> fieldNames(int fieldCount) {
+        List<String> fieldNames = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            fieldNames.add(fieldName(i));
+        }
+        return fieldNames;
+    }
+
+    public static byte[] createTemplate(int fieldCount, int pageCount) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(PageSize.A4);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            document.open();
+            int fieldsPerPage = (fieldCount + pageCount - 1) / pageCount;
+            int rows = Math.max(1, (fieldsPerPage + COLUMNS - 1) / COLUMNS);
+            float cellWidth = (PageSize.A4.getWidth() - 72) / COLUMNS;
+            float cellHeight = (PageSize.A4.getHeight() - 144) / rows;
+            int field = 0;
+            for (int page = 1; page <= pageCount; page++) {
+                if (page > 1) {
+                    document.newPage();
+                }
+                document.add(new Paragraph("Benchmark contract template, page " + page + " of " + pageCount));
+                for (int i = 0; i < fieldsPerPage && field < fieldCount; i++, field++) {
+                    float llx = 36 + (i % COLUMNS) * cellWidth;
+                    float lly = 72 + (i / COLUMNS) * cellHeight;
+                    TextField textField = new TextField(writer, new Rectangle(llx, lly, llx + cellWidth - 2, lly + cellHeight - 1), fieldName(field));
+                    textField.setText("value " + field);
+                    textField.setFontSize(0);
+                    writer.addAnnotation(textField.getTextField());
+                }
+            }
+            for (int i = 0; i < SIGNATURE_FIELD_COUNT; i++) {
+                float llx = 36 + i * 130;
+                PdfFormField signatureField = PdfFormField.createSignature(writer);
+                signatureField.setWidget(new Rectangle(llx, 20, llx + 120, 68), null);
+                signatureField.setFlags(PdfAnnotation.FLAGS_PRINT);
+                signatureField.put(PdfName.DA, new PdfString("/Helv 0 Tf 0 g"));
+                signatureField.setFieldName(signatureFieldName(i));
+                signatureField.setPage(pageCount);
+                writer.addAnnotation(signatureField);
+            }
+            document.close();
+        } catch (DocumentException e) {
+            throw new IOException("Unable to generate benchmark template", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A handwriting-like scribble on a white background, the kind of upload the IMAGE signature path receives.
+     */
+    public static BufferedImage createSignatureScan(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics2D = image.createGraphics();
+        graphics2D.setColor(Color.WHITE);
+        graphics2D.fillRect(0, 0, width, height);
+        graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics2D.setColor(new Color(20, 30, 120));
+        graphics2D.setStroke(new BasicStroke(Math.max(2f, width / 200f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        int x0 = width / 8;
+        int y0 = height / 2;
+        for (int i = 0; i < 12; i++) {
+            int x1 = x0 + width / 16;
+            int y1 = height / 4 + (i * 37 % (height / 2));
+            graphics2D.drawLine(x0, y0, x1, y1);
+            x0 = x1;
+            y0 = y1;
+        }
+        graphics2D.dispose();
+        return image;
+    }
+
+    public static byte[] toPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", out);
+        return out.toByteArray();
+    }
+
+}
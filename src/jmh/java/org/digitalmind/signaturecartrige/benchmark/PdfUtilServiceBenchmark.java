@@ -0,0 +1,165 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
+import org.digitalmind.signaturecartrige.dto.*;
+import org.digitalmind.signaturecartrige.service.impl.PdfUtilServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF operations of {@link PdfUtilServiceImpl} over generated templates with 10 to 5,000 AcroFields.
+ * Run with the gc profiler ({@code -prof gc}) to get the allocation rate next to throughput and percentiles.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PdfUtilServiceBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    public int fieldCount;
+
+    @Param({"1", "50"})
+    public int pageCount;
+
+    @Param({"true", "false"})
+    public boolean templateCache;
+
+    private PdfUtilServiceImpl pdfUtilService;
+    private byte[] template;
+    private byte[] watermark;
+    private Map<String, String> formFields;
+    private Map<String, PdfFieldPosition> signatureFields;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SignatureCartrigeProperties properties = new SignatureCartrigeProperties();
+        properties.getTemplateCache().setEnabled(templateCache);
+        pdfUtilService = new PdfUtilServiceImpl(properties);
+        template = PdfCorpus.createTemplate(fieldCount, pageCount);
+        watermark = PdfCorpus.toPng(PdfCorpus.createSignatureScan(600, 300));
+
+        formFields = new HashMap<>();
+        formFields.put(PdfCorpus.fieldName(0), "exact");
+        formFields.put("contract_s1_*", "prefix");
+        formFields.put("*_f1?", "wildcard");
+
+        signatureFields = new HashMap<>();
+        for (int i = 0; i < 2; i++) {
+            signatureFields.put("added_signature_" + i, PdfFieldPosition.builder()
+                    .page(1).left(36 + i * 200).bottom(700).right(216 + i * 200).top(780)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public InspectContentResponse inspect() throws IOException {
+        return pdfUtilService.inspect(InspectContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .signatureField("signature_*")
+                .privateField("contract_s9_*")
+                .privateField(PdfCorpus.fieldName(1))
+                .replaceField("contract_s1_*")
+                .replaceField("*_f1?")
+                .build());
+    }
+
+    @Benchmark
+    public ReplaceContentResponse replace() throws IOException {
+        return pdfUtilService.replace(ReplaceContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(NullOutputStream.NULL_OUTPUT_STREAM)
+                .formFields(formFields)
+                .build());
+    }
+
+    @Benchmark
+    public WatermarkContentResponse watermark() throws IOException {
+        return pdfUtilService.watermark(WatermarkContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(NullOutputStream.NULL_OUTPUT_STREAM)
+                .watermarkStream(new ByteArrayInputStream(watermark))
+                .build());
+    }
+
+    @Benchmark
+    public FlattenContentResponse flattenAll() throws IOException {
+        return pdfUtilService.flatten(FlattenContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(NullOutputStream.NULL_OUTPUT_STREAM)
+                .flattenFields(Arrays.asList("*"))
+                .flattenSignatureFields(false)
+                .build());
+    }
+
+    @Benchmark
+    public FlattenContentResponse flattenPartial() throws IOException {
+        return pdfUtilService.flatten(FlattenContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(NullOutputStream.NULL_OUTPUT_STREAM)
+                .flattenFields(Arrays.asList("contract_*"))
+                .nonFlattenFields(Arrays.asList("contract_s1_*", PdfCorpus.fieldName(0)))
+                .build());
+    }
+
+    @Benchmark
+    public AddSignatureContentResponse addSignatureFields() throws IOException {
+        return pdfUtilService.addSignatureFields(AddSignatureContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(NullOutputStream.NULL_OUTPUT_STREAM)
+                .signatureFields(signatureFields)
+                .build());
+    }
+
+    @Benchmark
+    public byte[] signingFlowSequential() throws IOException {
+        ByteArrayOutputStream replaced = new ByteArrayOutputStream();
+        pdfUtilService.replace(ReplaceContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(replaced)
+                .formFields(formFields)
+                .build());
+        ByteArrayOutputStream withSignatureFields = new ByteArrayOutputStream();
+        pdfUtilService.addSignatureFields(AddSignatureContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(replaced.toByteArray()))
+                .outputStream(withSignatureFields)
+                .signatureFields(signatureFields)
+                .build());
+        ByteArrayOutputStream watermarked = new ByteArrayOutputStream();
+        pdfUtilService.watermark(WatermarkContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(withSignatureFields.toByteArray()))
+                .outputStream(watermarked)
+                .watermarkStream(new ByteArrayInputStream(watermark))
+                .build());
+        ByteArrayOutputStream flattened = new ByteArrayOutputStream();
+        pdfUtilService.flatten(FlattenContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(watermarked.toByteArray()))
+                .outputStream(flattened)
+                .flattenFields(Arrays.asList("*"))
+                .flattenSignatureFields(false)
+                .build());
+        return flattened.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] signingFlowPipeline() throws IOException {
+        ByteArrayOutputStream flattened = new ByteArrayOutputStream();
+        pdfUtilService.process(PdfPipelineRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(flattened)
+                .operation(ReplaceContentRequest.builder().formFields(formFields).build())
+                .operation(AddSignatureContentRequest.builder().signatureFields(signatureFields).build())
+                .operation(WatermarkContentRequest.builder().watermarkStream(new ByteArrayInputStream(watermark)).build())
+                .operation(FlattenContentRequest.builder().flattenFields(Arrays.asList("*")).flattenSignatureFields(false).build())
+                .build());
+        return flattened.toByteArray();
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.digitalmind.signaturecartrige.dto.FontType;
+import org.digitalmind.signaturecartrige.dto.SignatureCartridgeRequest;
+import org.digitalmind.signaturecartrige.dto.SignatureCartridgeResponse;
+import org.digitalmind.signaturecartrige.dto.SignatureConfigurationRequest;
+import org.digitalmind.signaturecartrige.dto.SignatureMode;
+import org.digitalmind.signaturecartrige.enumeration.SignatureFieldAppearance;
+import org.digitalmind.signaturecartrige.enumeration.SignatureImageType;
+import org.digitalmind.signaturecartrige.exception.PdfUtilException;
+import org.digitalmind.signaturecartrige.service.impl.PdfUtilServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code createSignatureImage} for TEXT and IMAGE signatures in every {@link SignatureImageType}.
+ * The fonts are resolved from {@code /dss/fonts} on the benchmark classpath (see {@code processJmhResources}).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class SignatureCartridgeBenchmark {
+
+    @Param({"TEXT", "IMAGE"})
+    public SignatureMode mode;
+
+    @Param({"PNG", "JPG", "GIF", "BMP"})
+    public SignatureImageType imageType;
+
+    @Param({"DejaVuSans"})
+    public String fontName;
+
+    @Param({"1600"})
+    public int scanWidth;
+
+    private PdfUtilServiceImpl pdfUtilService;
+    private SignatureConfigurationRequest configuration;
+    private byte[] signatureScan;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pdfUtilService = new PdfUtilServiceImpl();
+        configuration = SignatureConfigurationRequest.builder()
+                .mode(mode)
+                .signatureFieldAppearance(SignatureFieldAppearance.FULL)
+                .sessionFontType(FontType.builder().name(fontName).size(14f).left(20).build())
+                .sessionLabel("Session: ")
+                .signatureFontType(FontType.builder().name(fontName).size(72f).build())
+                .signatureColor("navy")
+                .traceFontType(FontType.builder().name(fontName).size(10f).left(20).build())
+                .dateFontType(FontType.builder().name(fontName).size(10f).left(20).build())
+                .dateLabel("Date: ")
+                .newWidth(400)
+                .newHeight(200)
+                .imageType(imageType)
+                .build();
+        signatureScan = PdfCorpus.toPng(PdfCorpus.createSignatureScan(scanWidth, scanWidth / 2));
+    }
+
+    @Benchmark
+    public SignatureCartridgeResponse createSignatureImage() throws PdfUtilException {
+        return pdfUtilService.createSignatureImage(SignatureCartridgeRequest.builder()
+                .session("4f0c2a9e-71d3-4b8e-a0f5-2d6c9b1e8a70")
+                .signature(mode == SignatureMode.IMAGE ? new ByteArrayInputStream(signatureScan) : "Maximilian Alexander von Hohenberg-Lichtenstein")
+                .trace("Signed electronically by Maximilian Alexander von Hohenberg-Lichtenstein")
+                .trace("IP 192.168.100.200, device 3b9f1c, certificate serial 00:af:31:9c:7e:55")
+                .trace("Document SHA-256 9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+                .date("2020-06-15 10:42:17 EEST")
+                .configuration(configuration)
+                .build());
+    }
+
+}
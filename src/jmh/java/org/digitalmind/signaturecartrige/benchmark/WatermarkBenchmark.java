@@ -0,0 +1,58 @@
+package org.digitalmind.signaturecartrige.benchmark;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
+import org.digitalmind.signaturecartrige.dto.WatermarkContentRequest;
+import org.digitalmind.signaturecartrige.service.impl.PdfUtilServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watermarking a document with the shared XObject engine versus the image and graphics state added per page.
+ * The {@code outputBytes} secondary result reports the size of the written document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class WatermarkBenchmark {
+
+    @Param({"1", "50", "800"})
+    public int pageCount;
+
+    @Param({"XOBJECT", "PER_PAGE"})
+    public SignatureCartrigeProperties.Watermark.Engine engine;
+
+    private PdfUtilServiceImpl pdfUtilService;
+    private byte[] template;
+    private byte[] watermark;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SignatureCartrigeProperties properties = new SignatureCartrigeProperties();
+        properties.getWatermark().setEngine(engine);
+        pdfUtilService = new PdfUtilServiceImpl(properties);
+        template = PdfCorpus.createTemplate(10, pageCount);
+        watermark = PdfCorpus.toPng(PdfCorpus.createSignatureScan(800, 400));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pdfUtilService.destroy();
+    }
+
+    @Benchmark
+    public void watermark(OutputSize outputSize) throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        pdfUtilService.watermark(WatermarkContentRequest.builder()
+                .inputStream(new ByteArrayInputStream(template))
+                .outputStream(outputStream)
+                .watermarkStream(new ByteArrayInputStream(watermark))
+                .build());
+        outputSize.outputBytes = outputStream.getByteCount();
+    }
+
+}
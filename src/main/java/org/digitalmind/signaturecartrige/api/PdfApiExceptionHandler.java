@@ -0,0 +1,26 @@
+package org.digitalmind.signaturecartrige.api;
+
+import org.digitalmind.signaturecartrige.exception.PdfContentTooLargeException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleConfig.API_ENABLED;
+
+/**
+ * Errors answered the same way by every controller of the API: a document over the configured size, whether it
+ * is spooled for a request or uploaded for a job, is rejected with {@code 413 Payload Too Large}.
+ */
+@RestControllerAdvice(assignableTypes = {PdfUtilController.class, PdfJobController.class})
+@ConditionalOnProperty(name = API_ENABLED, havingValue = "true")
+public class PdfApiExceptionHandler {
+
+    @ExceptionHandler(PdfContentTooLargeException.class)
+    public ResponseEntity<String> handleTooLarge(PdfContentTooLargeException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+
+}
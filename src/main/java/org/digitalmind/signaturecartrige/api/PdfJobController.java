@@ -0,0 +1,143 @@
+package org.digitalmind.signaturecartrige.api;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
+import org.digitalmind.signaturecartrige.dto.*;
+import org.digitalmind.signaturecartrige.service.PdfJobService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleConfig.API_ENABLED;
+import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleConfig.API_PATH;
+
+/**
+ * Long running operations as jobs: a submission answers {@code 202 Accepted} with the job status and its location
+ * as soon as the document is stored, the status is polled and the result fetched once the job has succeeded.
+ */
+@RestController
+@RequestMapping("${" + API_PATH + ":/signaturecartrige}/jobs")
+@ConditionalOnProperty(name = API_ENABLED, havingValue = "true")
+@Api(tags = "signature-cartrige-jobs")
+@Slf4j
+public class PdfJobController {
+
+    private static final String PDF = MediaType.APPLICATION_PDF_VALUE;
+    private static final String BINARY = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+
+    private final PdfJobService pdfJobService;
+    private final SignatureCartrigeProperties.Api properties;
+
+    public PdfJobController(PdfJobService pdfJobService, SignatureCartrigeProperties properties) {
+        this.pdfJobService = pdfJobService;
+        this.properties = properties.getApi();
+    }
+
+    @PostMapping(value = "/flatten", consumes = {PDF, BINARY}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Submit a flatten job")
+    public ResponseEntity<PdfJobStatus> flatten(
+            InputStream body,
+            @RequestParam(name = "flattenField", required = false) List<String> flattenFields,
+            @RequestParam(name = "nonFlattenField", required = false) List<String> nonFlattenFields,
+            @RequestParam(name = "flattenSignatureFields", required = false) Boolean flattenSignatureFields
+    ) throws IOException {
+        return accepted(pdfJobService.submit(PdfPipelineRequest.builder()
+                .inputStream(body)
+                .operation(FlattenContentRequest.builder()
+                        .flattenFields(flattenFields)
+                        .nonFlattenFields(nonFlattenFields)
+                        .flattenSignatureFields(flattenSignatureFields)
+                        .build())
+                .build()));
+    }
+
+    @PostMapping(value = "/watermark", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Submit a watermark job")
+    public ResponseEntity<PdfJobStatus> watermark(
+            @RequestPart("document") MultipartFile documentFile,
+            @RequestPart("watermark") MultipartFile watermarkFile,
+            @RequestParam(name = "position", required = false) WatermarkPosition position,
+            @RequestParam(name = "opacity", required = false) Float opacity,
+            @RequestParam(name = "scale", required = false) Float scale,
+            @RequestParam(name = "rotation", required = false) Float rotation
+    ) throws IOException {
+        try (InputStream document = documentFile.getInputStream()) {
+            return accepted(pdfJobService.submit(PdfPipelineRequest.builder()
+                    .inputStream(document)
+                    .operation(WatermarkContentRequest.builder()
+                            .watermarkStream(new ByteArrayInputStream(watermarkFile.getBytes()))
+                            .position(position)
+                            .opacity(opacity)
+                            .scale(scale)
+                            .rotation(rotation)
+                            .build())
+                    .build()));
+        }
+    }
+
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Status and progress of a job")
+    public ResponseEntity<PdfJobStatus> status(@PathVariable("id") String id) {
+        PdfJobStatus status = pdfJobService.getStatus(id);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping(value = "/{id}/result", produces = PDF)
+    @ApiOperation("The document written by a succeeded job")
+    public ResponseEntity<Resource> result(@PathVariable("id") String id) {
+        Path result = pdfJobService.getResult(id);
+        if (result == null) {
+            // a known job without result is not done, or did not succeed
+            return pdfJobService.getStatus(id) != null
+                    ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                    : ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(new FileSystemResource(result));
+    }
+
+    @DeleteMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Cancel a job, or discard a finished one with its result")
+    public ResponseEntity<PdfJobStatus> cancel(@PathVariable("id") String id) {
+        PdfJobStatus status = pdfJobService.cancel(id);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        log.debug("Rejected job: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+
+    private ResponseEntity<PdfJobStatus> accepted(PdfJobStatus status) {
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path(properties.getPath())
+                .path("/jobs/{id}")
+                .buildAndExpand(status.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(status);
+    }
+
+}
@@ -0,0 +1,261 @@
+package org.digitalmind.signaturecartrige.api;
+
+import com.lowagie.text.exceptions.InvalidPdfException;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import lombok.extern.slf4j.Slf4j;
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
+import org.digitalmind.signaturecartrige.dto.*;
+import org.digitalmind.signaturecartrige.exception.PdfUtilException;
+import org.digitalmind.signaturecartrige.service.PdfUtilService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleConfig.API_ENABLED;
+import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleConfig.API_PATH;
+
+/**
+ * The document operations over HTTP. The document is the raw request body ({@code application/pdf}), or the
+ * {@code document} part for the watermark; it is spooled by {@link SpooledDocument} and the result is written to
+ * the response while it is produced.
+ * <p>
+ * Field values and positions are request parameters named {@code field.<field name>}. Since the response is
+ * committed once the document starts streaming, a failure while writing it aborts the response instead of
+ * answering with an error status.
+ */
+@RestController
+@RequestMapping("${" + API_PATH + ":/signaturecartrige}")
+@ConditionalOnProperty(name = API_ENABLED, havingValue = "true")
+@Api(tags = "signature-cartrige")
+@Slf4j
+public class PdfUtilController {
+
+    public static final String FIELD_PARAMETER_PREFIX = "field.";
+    private static final String PDF = MediaType.APPLICATION_PDF_VALUE;
+    private static final String BINARY = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+
+    private final PdfUtilService pdfUtilService;
+    private final SignatureCartrigeProperties.Api properties;
+
+    public PdfUtilController(PdfUtilService pdfUtilService, SignatureCartrigeProperties properties) {
+        this.pdfUtilService = pdfUtilService;
+        this.properties = properties.getApi();
+    }
+
+    @PostMapping(value = "/inspect", consumes = {PDF, BINARY}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Report the signature, private and replaceable fields of a document")
+    public InspectContentResponse inspect(
+            InputStream body,
+            @RequestParam(name = "signatureField", required = false) List<String> signatureFields,
+            @RequestParam(name = "privateField", required = false) List<String> privateFields,
+            @RequestParam(name = "replaceField", required = false) List<String> replaceFields
+    ) throws IOException {
+        try (SpooledDocument document = spool(body)) {
+            InspectContentRequest.InspectContentRequestBuilder<?, ?> builder = InspectContentRequest.builder()
+                    .inputStream(document.getInputStream())
+                    .inputPath(document.getPath());
+            if (signatureFields != null) {
+                builder.signatureFields(signatureFields);
+            }
+            if (privateFields != null) {
+                builder.privateFields(privateFields);
+            }
+            if (replaceFields != null) {
+                builder.replaceFields(replaceFields);
+            }
+            return pdfUtilService.inspect(builder.build());
+        }
+    }
+
+    @PostMapping(value = "/replace", consumes = {PDF, BINARY}, produces = PDF)
+    @ApiOperation("Fill form fields, given as field.<name>=<value> parameters")
+    public ResponseEntity<StreamingResponseBody> replace(
+            InputStream body,
+            @RequestParam(name = "appendMode", required = false) Boolean appendMode,
+            @ApiParam(hidden = true) @RequestParam MultiValueMap<String, String> parameters
+    ) throws IOException {
+        Map<String, String> formFields = fieldParameters(parameters);
+        SpooledDocument document = spool(body);
+        return stream(document, MediaType.APPLICATION_PDF, outputStream -> pdfUtilService.replace(ReplaceContentRequest.builder()
+                .inputStream(document.getInputStream())
+                .inputPath(document.getPath())
+                .outputStream(outputStream)
+                .appendMode(appendMode)
+                .formFields(formFields)
+                .build()));
+    }
+
+    @PostMapping(value = "/flatten", consumes = {PDF, BINARY}, produces = PDF)
+    @ApiOperation("Flatten form fields, all of them when none are selected")
+    public ResponseEntity<StreamingResponseBody> flatten(
+            InputStream body,
+            @RequestParam(name = "flattenField", required = false) List<String> flattenFields,
+            @RequestParam(name = "nonFlattenField", required = false) List<String> nonFlattenFields,
+            @RequestParam(name = "flattenSignatureFields", required = false) Boolean flattenSignatureFields
+    ) throws IOException {
+        SpooledDocument document = spool(body);
+        return stream(document, MediaType.APPLICATION_PDF, outputStream -> pdfUtilService.flatten(FlattenContentRequest.builder()
+                .inputStream(document.getInputStream())
+                .inputPath(document.getPath())
+                .outputStream(outputStream)
+                .flattenFields(flattenFields)
+                .nonFlattenFields(nonFlattenFields)
+                .flattenSignatureFields(flattenSignatureFields)
+                .build()));
+    }
+
+    @PostMapping(value = "/watermark", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = PDF)
+    @ApiOperation("Stamp the watermark image over every page")
+    public ResponseEntity<StreamingResponseBody> watermark(
+            @RequestPart("document") MultipartFile documentFile,
+            @RequestPart("watermark") MultipartFile watermarkFile,
+            @RequestParam(name = "position", required = false) WatermarkPosition position,
+            @RequestParam(name = "opacity", required = false) Float opacity,
+            @RequestParam(name = "scale", required = false) Float scale,
+            @RequestParam(name = "rotation", required = false) Float rotation
+    ) throws IOException {
+        // the parts may not outlive the request, the watermark is small and read now
+        byte[] watermark = watermarkFile.getBytes();
+        SpooledDocument document = SpooledDocument.spool(documentFile, properties.getSpoolThreshold(), properties.getMaxDocumentBytes(), properties.getSpoolDirectory());
+        return stream(document, MediaType.APPLICATION_PDF, outputStream -> pdfUtilService.watermark(WatermarkContentRequest.builder()
+                .inputStream(document.getInputStream())
+                .inputPath(document.getPath())
+                .outputStream(outputStream)
+                .watermarkStream(new ByteArrayInputStream(watermark))
+                .position(position)
+                .opacity(opacity)
+                .scale(scale)
+                .rotation(rotation)
+                .build()));
+    }
+
+    @PostMapping(value = "/signature-fields", consumes = {PDF, BINARY}, produces = PDF)
+    @ApiOperation("Add signature fields, given as field.<name>=<page>,<left>,<bottom>,<right>,<top> parameters")
+    public ResponseEntity<StreamingResponseBody> addSignatureFields(
+            InputStream body,
+            @RequestParam(name = "appendMode", required = false) Boolean appendMode,
+            @ApiParam(hidden = true) @RequestParam MultiValueMap<String, String> parameters
+    ) throws IOException {
+        Map<String, PdfFieldPosition> signatureFields = new LinkedHashMap<>();
+        fieldParameters(parameters).forEach((name, value) -> signatureFields.put(name, toFieldPosition(name, value)));
+        SpooledDocument document = spool(body);
+        return stream(document, MediaType.APPLICATION_PDF, outputStream -> pdfUtilService.addSignatureFields(AddSignatureContentRequest.builder()
+                .inputStream(document.getInputStream())
+                .inputPath(document.getPath())
+                .outputStream(outputStream)
+                .appendMode(appendMode)
+                .signatureFields(signatureFields)
+                .build()));
+    }
+
+    @PostMapping(value = "/cartridge", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ApiOperation("Render a text signature cartridge")
+    public ResponseEntity<StreamingResponseBody> cartridge(
+            @RequestBody SignatureCartridgeRequest request,
+            @RequestParam(name = "width", required = false) Integer width,
+            @RequestParam(name = "height", required = false) Integer height
+    ) {
+        Assert.notNull(request.getConfiguration(), this.getClass().getSimpleName() + ".cartridge: configuration is required");
+        Assert.notNull(request.getConfiguration().getImageType(), this.getClass().getSimpleName() + ".cartridge: configuration.imageType is required");
+        String contentType = URLConnection.guessContentTypeFromName("cartridge." + request.getConfiguration().getImageType().name());
+        return ResponseEntity.ok()
+                .contentType(contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM)
+                .body(outputStream -> {
+                    try {
+                        pdfUtilService.writeSignatureImage(request, width, height, outputStream);
+                    } catch (PdfUtilException e) {
+                        throw new IOException(e.getMessage(), e);
+                    }
+                });
+    }
+
+    @ExceptionHandler({InvalidPdfException.class, IllegalArgumentException.class})
+    public ResponseEntity<String> handleBadRequest(Exception e) {
+        log.debug("Rejected request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+
+    private SpooledDocument spool(InputStream body) throws IOException {
+        return SpooledDocument.spool(body, properties.getSpoolThreshold(), properties.getMaxDocumentBytes(), properties.getSpoolDirectory());
+    }
+
+    /**
+     * The document is deleted once the response is written, or when writing it fails. It is also deleted when the
+     * request completes without the body being written, e.g. when the client went away or the request timed out
+     * before the body was started.
+     */
+    private ResponseEntity<StreamingResponseBody> stream(SpooledDocument document, MediaType contentType, StreamingResponseBody body) {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(document, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                try {
+                    document.close();
+                } catch (IOException e) {
+                    log.warn("Unable to delete the spooled document {}", document.getPath(), e);
+                }
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(outputStream -> {
+                    // closed here and again by the interceptor once the request completes; closing twice is harmless
+                    try {
+                        body.writeTo(outputStream);
+                    } finally {
+                        document.close();
+                    }
+                });
+    }
+
+    private static Map<String, String> fieldParameters(MultiValueMap<String, String> parameters) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        parameters.forEach((name, values) -> {
+            if (name.startsWith(FIELD_PARAMETER_PREFIX) && name.length() > FIELD_PARAMETER_PREFIX.length() && !values.isEmpty()) {
+                fields.put(name.substring(FIELD_PARAMETER_PREFIX.length()), values.get(values.size() - 1));
+            }
+        });
+        return fields;
+    }
+
+    private PdfFieldPosition toFieldPosition(String name, String value) {
+        String[] parts = value.split(",");
+        Assert.isTrue(parts.length == 5, this.getClass().getSimpleName() + ".addSignatureFields: " + name + " must be <page>,<left>,<bottom>,<right>,<top>");
+        try {
+            return PdfFieldPosition.builder()
+                    .page(Float.parseFloat(parts[0].trim()))
+                    .left(Float.parseFloat(parts[1].trim()))
+                    .bottom(Float.parseFloat(parts[2].trim()))
+                    .right(Float.parseFloat(parts[3].trim()))
+                    .top(Float.parseFloat(parts[4].trim()))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(this.getClass().getSimpleName() + ".addSignatureFields: " + name + " must be <page>,<left>,<bottom>,<right>,<top>", e);
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.digitalmind.signaturecartrige.api;
+
+import org.digitalmind.signaturecartrige.exception.PdfContentTooLargeException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An uploaded document, read from the request before the operation runs: PDFs are read with random access, so
+ * they cannot be processed while they arrive.
+ * <p>
+ * Documents up to the threshold stay on the heap, larger ones are written to a temporary file that the service
+ * opens memory-mapped; {@link #close()} deletes it, and may be called more than once.
+ */
+public final class SpooledDocument implements Closeable {
+
+    private static final String FILE_PREFIX = "signaturecartrige-";
+    private static final String FILE_SUFFIX = ".pdf";
+
+    private final byte[] content;
+    private final Path path;
+    private final long length;
+
+    private SpooledDocument(byte[] content, Path path, long length) {
+        this.content = content;
+        this.path = path;
+        this.length = length;
+    }
+
+    /**
+     * @param directory where larger documents are written, the system temporary directory when {@code null}
+     */
+    public static SpooledDocument spool(InputStream inputStream, long threshold, long maxBytes, Path directory) throws IOException {
+        byte[] buffer = new byte[8192];
+        ByteArrayOutputStream memory = new ByteArrayOutputStream((int) Math.min(threshold, buffer.length * 8L));
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            memory.write(buffer, 0, read);
+            if (memory.size() > threshold) {
+                return spoolToFile(memory, buffer, inputStream, maxBytes, directory);
+            }
+        }
+        checkLength(memory.size(), maxBytes);
+        return new SpooledDocument(memory.toByteArray(), null, memory.size());
+    }
+
+    public static SpooledDocument spool(MultipartFile file, long threshold, long maxBytes, Path directory) throws IOException {
+        checkLength(file.getSize(), maxBytes);
+        if (file.getSize() <= threshold) {
+            return new SpooledDocument(file.getBytes(), null, file.getSize());
+        }
+        // parts already stored on disk by the container are moved rather than copied
+        Path path = createFile(directory);
+        try {
+            file.transferTo(path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return new SpooledDocument(null, path, file.getSize());
+    }
+
+    private static SpooledDocument spoolToFile(ByteArrayOutputStream memory, byte[] buffer, InputStream inputStream, long maxBytes, Path directory) throws IOException {
+        Path path = createFile(directory);
+        try {
+            long length = memory.size();
+            try (OutputStream outputStream = Files.newOutputStream(path)) {
+                memory.writeTo(outputStream);
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    length += read;
+                    checkLength(length, maxBytes);
+                    outputStream.write(buffer, 0, read);
+                }
+            }
+            checkLength(length, maxBytes);
+            return new SpooledDocument(null, path, length);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private static Path createFile(Path directory) throws IOException {
+        if (directory == null) {
+            return Files.createTempFile(FILE_PREFIX, FILE_SUFFIX);
+        }
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+    }
+
+    private static void checkLength(long length, long maxBytes) {
+        if (maxBytes > 0 && length > maxBytes) {
+            throw new PdfContentTooLargeException(maxBytes);
+        }
+    }
+
+    public boolean isFile() {
+        return path != null;
+    }
+
+    /**
+     * The temporary file, {@code null} when the document is kept in memory.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * The in memory content, {@code null} when the document is spooled to a file.
+     */
+    public InputStream getInputStream() {
+        return content != null ? new ByteArrayInputStream(content) : null;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (path != null) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+}
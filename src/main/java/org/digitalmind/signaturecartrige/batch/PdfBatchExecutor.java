@@ -0,0 +1,134 @@
+package org.digitalmind.signaturecartrige.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs one operation per document of a batch on a bounded executor.
+ * <p>
+ * At most {@code parallelism} documents are processed at the same time and at most {@code queueCapacity} more are
+ * accepted; a submission beyond that blocks the submitting thread until a document completes, so a caller pushing
+ * a large batch is slowed down instead of filling the heap with pending documents. Every document gets its own
+ * future, completed with the response or, exceptionally, with the error of that document alone.
+ */
+@Slf4j
+public class PdfBatchExecutor {
+
+    @FunctionalInterface
+    public interface PdfOperation<T, R> {
+        R apply(T request) throws Exception;
+    }
+
+    private final SignatureCartrigeProperties.Batch.ExecutorType executorType;
+    private final ExecutorService executor;
+    private final Semaphore accepted;
+    private final Semaphore running;
+
+    public PdfBatchExecutor(SignatureCartrigeProperties.Batch properties) {
+        int parallelism = Math.max(1, properties.getParallelism());
+        SignatureCartrigeProperties.Batch.ExecutorType executorType = properties.getExecutorType() != null
+                ? properties.getExecutorType()
+                : SignatureCartrigeProperties.Batch.ExecutorType.THREAD_POOL;
+        ExecutorService executor = null;
+        if (executorType == SignatureCartrigeProperties.Batch.ExecutorType.VIRTUAL) {
+            executor = newVirtualThreadPerTaskExecutor();
+            if (executor == null) {
+                log.warn("Virtual threads are not available on this JVM, batch operations use a thread pool");
+                executorType = SignatureCartrigeProperties.Batch.ExecutorType.THREAD_POOL;
+            }
+        }
+        if (executorType == SignatureCartrigeProperties.Batch.ExecutorType.FORK_JOIN) {
+            executor = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        } else if (executorType == SignatureCartrigeProperties.Batch.ExecutorType.THREAD_POOL) {
+            executor = newThreadPool(parallelism);
+        }
+        this.executorType = executorType;
+        this.executor = executor;
+        this.accepted = new Semaphore(parallelism + Math.max(0, properties.getQueueCapacity()));
+        // the pools never run more than parallelism tasks, virtual threads have to be limited explicitly
+        this.running = executorType == SignatureCartrigeProperties.Batch.ExecutorType.VIRTUAL ? new Semaphore(parallelism) : null;
+    }
+
+    public SignatureCartrigeProperties.Batch.ExecutorType getExecutorType() {
+        return executorType;
+    }
+
+    public <T, R> List<CompletableFuture<R>> submitAll(Collection<T> requests, PdfOperation<T, R> operation) {
+        List<CompletableFuture<R>> result = new ArrayList<>(requests.size());
+        for (T request : requests) {
+            result.add(submit(request, operation));
+        }
+        return result;
+    }
+
+    public <T, R> CompletableFuture<R> submit(T request, PdfOperation<T, R> operation) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            accepted.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+        try {
+            executor.execute(() -> run(request, operation, future));
+        } catch (RejectedExecutionException e) {
+            accepted.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T, R> void run(T request, PdfOperation<T, R> operation, CompletableFuture<R> future) {
+        try {
+            if (running != null) {
+                running.acquire();
+            }
+            try {
+                future.complete(operation.apply(request));
+            } finally {
+                if (running != null) {
+                    running.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            accepted.release();
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService newThreadPool(int parallelism) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // queue is unbounded here, the accepted permits bound it
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "signaturecartrige-batch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+}
@@ -2,6 +2,7 @@ package org.digitalmind.signaturecartrige.config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +15,7 @@ import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleCo
         API_PACKAGE
 })
 @EnableCaching
+@EnableConfigurationProperties(SignatureCartrigeProperties.class)
 @ConditionalOnProperty(name = ENABLED, havingValue = "true")
 @Slf4j
 public class SignatureCartrigeModuleConfig {
@@ -21,6 +23,7 @@ public class SignatureCartrigeModuleConfig {
     public static final String PREFIX = "application.modules.common." + MODULE;
     public static final String ENABLED = PREFIX + ".enabled";
     public static final String API_ENABLED = PREFIX + ".api.enabled";
+    public static final String API_PATH = PREFIX + ".api.path";
 
     public static final String ROOT_PACKAGE = "org.digitalmind." + MODULE;
     public static final String CONFIG_PACKAGE = ROOT_PACKAGE + ".config";
@@ -0,0 +1,221 @@
+package org.digitalmind.signaturecartrige.config;
+
+import lombok.Data;
+import org.digitalmind.signaturecartrige.image.ImageScaler;
+import org.digitalmind.signaturecartrige.image.PngEncoder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleConfig.PREFIX;
+
+@ConfigurationProperties(prefix = PREFIX)
+@Data
+public class SignatureCartrigeProperties {
+
+    private TemplateCache templateCache = new TemplateCache();
+    private CartridgeTemplateCache cartridgeTemplateCache = new CartridgeTemplateCache();
+    private Batch batch = new Batch();
+    private Scaling scaling = new Scaling();
+    private Encoder encoder = new Encoder();
+    private ImagePool imagePool = new ImagePool();
+    private FontCache fontCache = new FontCache();
+    private ConfigurationCache configurationCache = new ConfigurationCache();
+    private ResultCache resultCache = new ResultCache();
+    private Watermark watermark = new Watermark();
+    private Flatten flatten = new Flatten();
+    private Metrics metrics = new Metrics();
+    private Api api = new Api();
+    private Jobs jobs = new Jobs();
+
+    @Data
+    public static class TemplateCache {
+        private boolean enabled = true;
+        private long maxBytes = 32L * 1024 * 1024;
+    }
+
+    @Data
+    public static class CartridgeTemplateCache {
+        private boolean enabled = true;
+        private long maxBytes = 16L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Batch {
+        private ExecutorType executorType = ExecutorType.THREAD_POOL;
+        /**
+         * Documents processed at the same time.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        /**
+         * Documents accepted on top of the running ones before a batch submission blocks the caller.
+         */
+        private int queueCapacity = 64;
+
+        public enum ExecutorType {
+            THREAD_POOL,
+            FORK_JOIN,
+            /**
+             * One virtual thread per document, on JDK 21 or newer; falls back to {@link #THREAD_POOL} otherwise.
+             */
+            VIRTUAL
+        }
+    }
+
+    @Data
+    public static class Scaling {
+        /**
+         * How signature images and rendered text are resized; {@code AUTO} picks by scale ratio.
+         */
+        private ImageScaler.Strategy strategy = ImageScaler.Strategy.AUTO;
+    }
+
+    @Data
+    public static class Encoder {
+        /**
+         * JPEG quality, 0 to 1.
+         */
+        private float jpegQuality = 0.9f;
+        /**
+         * Deflate level of PNG output, 0 (stored) to 9.
+         */
+        private int pngCompressionLevel = 4;
+        private PngEncoder.Filter pngFilter = PngEncoder.Filter.NONE;
+        /**
+         * Encode PNG with the built-in encoder; {@code false} uses the {@code ImageIO} writer.
+         */
+        private boolean fastPng = true;
+    }
+
+    @Data
+    public static class ImagePool {
+        private boolean enabled = true;
+        /**
+         * Pixel bytes of released cartridge canvases kept for reuse.
+         */
+        private long maxBytes = 16L * 1024 * 1024;
+    }
+
+    @Data
+    public static class FontCache {
+        /**
+         * Parse every font of {@code /dss/fonts} at startup.
+         */
+        private boolean preload = true;
+        /**
+         * Fonts derived by name, style and size kept at the same time.
+         */
+        private long maxDerivedFonts = 1024;
+    }
+
+    @Data
+    public static class ConfigurationCache {
+        private boolean enabled = true;
+        private long maxEntries = 1024;
+        /**
+         * Configurations unused for this long are dropped; zero keeps them until evicted by size.
+         */
+        private Duration expireAfterAccess = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class ResultCache {
+        /**
+         * Keep encoded cartridges and answer identical requests without rendering.
+         */
+        private boolean enabled = false;
+        private long maxBytes = 32L * 1024 * 1024;
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Watermark {
+        private Engine engine = Engine.XOBJECT;
+
+        public enum Engine {
+            /**
+             * One shared form XObject referenced from every page.
+             */
+            XOBJECT,
+            /**
+             * The image and a new graphics state added to every page, centered at half opacity; placement settings
+             * of the request are ignored.
+             */
+            PER_PAGE
+        }
+    }
+
+    @Data
+    public static class Flatten {
+        private Mode mode = Mode.SEQUENTIAL;
+        /**
+         * Page ranges flattened at the same time, over all requests.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        /**
+         * Documents are only split into ranges of at least this many pages.
+         */
+        private int minPagesPerRange = 32;
+
+        public enum Mode {
+            SEQUENTIAL,
+            /**
+             * Experimental. Full flattens of large documents are split into page ranges flattened concurrently
+             * and merged; partial flattens and pipelines stay sequential. The merge is serial, so a gain needs
+             * several cores and has not been measured yet; on a single core it is several times slower.
+             */
+            PARALLEL
+        }
+    }
+
+    @Data
+    public static class Metrics {
+        /**
+         * Publish the {@code signaturecartrige.*} meters to the Micrometer registry, when there is one.
+         */
+        private boolean enabled = true;
+    }
+
+    @Data
+    public static class Api {
+        private boolean enabled = false;
+        private String path = "/signaturecartrige";
+        /**
+         * Uploaded documents up to this size are kept in memory, larger ones are spooled to a temporary file.
+         */
+        private long spoolThreshold = 1024L * 1024;
+        /**
+         * Uploaded documents larger than this are rejected.
+         */
+        private long maxDocumentBytes = 256L * 1024 * 1024;
+        /**
+         * Where documents are spooled; the system temporary directory when not set.
+         */
+        private Path spoolDirectory;
+    }
+
+    @Data
+    public static class Jobs {
+        /**
+         * Documents processed at the same time, independently of the request threads.
+         */
+        private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        /**
+         * Jobs waiting for a worker; submissions beyond that are rejected.
+         */
+        private int queueCapacity = 16;
+        private long maxDocumentBytes = 1024L * 1024 * 1024;
+        /**
+         * Where inputs and results are kept; {@code signaturecartrige-jobs} in the system temporary directory when
+         * not set.
+         */
+        private Path directory;
+        /**
+         * Finished jobs and their results are discarded after this long.
+         */
+        private Duration resultTtl = Duration.ofHours(1);
+        private Duration cleanupInterval = Duration.ofMinutes(1);
+    }
+
+}
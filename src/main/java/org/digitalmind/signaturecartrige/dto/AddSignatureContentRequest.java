@@ -1,10 +1,12 @@
 package org.digitalmind.signaturecartrige.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.Map;
 
 @SuperBuilder
@@ -13,8 +15,15 @@ import java.util.Map;
 @Data
 @EqualsAndHashCode
 @ToString
-public class AddSignatureContentRequest {
+public class AddSignatureContentRequest implements PdfPipelineOperation {
     private InputStream inputStream;
+    private Path inputPath;
     private OutputStream outputStream;
+    private Boolean appendMode;
     private Map<String, PdfFieldPosition> signatureFields;
+
+    @JsonIgnore
+    public boolean hasAppendMode() {
+        return Boolean.TRUE.equals(appendMode);
+    }
 }
@@ -5,6 +5,7 @@ import lombok.experimental.SuperBuilder;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
 
 @SuperBuilder
@@ -13,8 +14,9 @@ import java.util.List;
 @Data
 @EqualsAndHashCode
 @ToString
-public class FlattenContentRequest {
+public class FlattenContentRequest implements PdfPipelineOperation {
     private InputStream inputStream;
+    private Path inputPath;
     private OutputStream outputStream;
     private List<String> flattenFields;
     private List<String> nonFlattenFields;
@@ -1,5 +1,6 @@
 package org.digitalmind.signaturecartrige.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
@@ -12,5 +13,15 @@ import lombok.experimental.SuperBuilder;
 @Data
 @EqualsAndHashCode
 @ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class FlattenContentResponse {
+    /**
+     * The flattening applied to the document; in a pipeline, the union of every stage that flattens fields.
+     */
+    private FlattenStrategy strategy;
+    /**
+     * Field counts of the source document; not counted when the document is flattened in parallel page ranges.
+     */
+    private Integer flattenedFieldCount;
+    private Integer keptFieldCount;
 }
@@ -0,0 +1,17 @@
+package org.digitalmind.signaturecartrige.dto;
+
+/**
+ * How a flatten was applied: not at all, every field at once, the flattened fields one by one, or the kept fields
+ * set aside before the flattened ones are removed.
+ * <p>
+ * {@link #NONE} is reported when {@code nonFlattenFields} or {@code flattenSignatureFields=false} exclude fields of
+ * the form and nothing is left to flatten; the form fields are kept then, where earlier versions flattened all of
+ * them. A selection that matches no field without excluding any still flattens every field. Free text annotations
+ * are flattened in every case.
+ */
+public enum FlattenStrategy {
+    NONE,
+    FULL,
+    INCLUSION,
+    EXCLUSION
+}
@@ -4,6 +4,7 @@ import lombok.*;
 import lombok.experimental.SuperBuilder;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 
 @SuperBuilder
@@ -15,6 +16,7 @@ import java.util.List;
 public class InspectContentRequest {
 
     private InputStream inputStream;
+    private Path inputPath;
     @Singular
     private List<String> signatureFields;
     @Singular
@@ -0,0 +1,13 @@
+package org.digitalmind.signaturecartrige.dto;
+
+public enum PdfJobState {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,33 @@
+package org.digitalmind.signaturecartrige.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.Instant;
+
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PdfJobStatus {
+    private String id;
+    private PdfJobState state;
+    /**
+     * Pages of the document, once it is opened.
+     */
+    private Integer pageCount;
+    private Integer pagesProcessed;
+    private Long bytesWritten;
+    private String error;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    /**
+     * When the job and its result are discarded.
+     */
+    private Instant expiresAt;
+}
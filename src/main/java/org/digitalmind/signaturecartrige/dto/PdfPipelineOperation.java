@@ -0,0 +1,18 @@
+package org.digitalmind.signaturecartrige.dto;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * A request that can run as a stage of a {@link PdfPipelineRequest}. Inside a pipeline the stage's own
+ * input and output streams are ignored, the document flows from one stage to the next.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "operation")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = ReplaceContentRequest.class, name = "replace"),
+        @JsonSubTypes.Type(value = AddSignatureContentRequest.class, name = "addSignatureFields"),
+        @JsonSubTypes.Type(value = WatermarkContentRequest.class, name = "watermark"),
+        @JsonSubTypes.Type(value = FlattenContentRequest.class, name = "flatten")
+})
+public interface PdfPipelineOperation {
+}
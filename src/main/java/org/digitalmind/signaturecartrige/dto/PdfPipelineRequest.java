@@ -0,0 +1,33 @@
+package org.digitalmind.signaturecartrige.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.digitalmind.signaturecartrige.pdf.PdfProgressListener;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class PdfPipelineRequest {
+    private InputStream inputStream;
+    private Path inputPath;
+    private OutputStream outputStream;
+    private Boolean appendMode;
+    @Singular
+    private List<PdfPipelineOperation> operations;
+    @JsonIgnore
+    private PdfProgressListener progressListener;
+
+    @JsonIgnore
+    public boolean hasAppendMode() {
+        return Boolean.TRUE.equals(appendMode);
+    }
+}
@@ -0,0 +1,20 @@
+package org.digitalmind.signaturecartrige.dto;
+
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@EqualsAndHashCode
+@ToString
+public class PdfPipelineResponse {
+    /**
+     * The response of every operation, in operation order.
+     */
+    @Singular
+    private List<Object> operationResponses;
+}
@@ -5,6 +5,7 @@ import lombok.experimental.SuperBuilder;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
 
 @SuperBuilder
 @NoArgsConstructor
@@ -12,8 +13,25 @@ import java.io.OutputStream;
 @Data
 @EqualsAndHashCode
 @ToString
-public class WatermarkContentRequest {
+public class WatermarkContentRequest implements PdfPipelineOperation {
     private InputStream inputStream;
+    private Path inputPath;
     private OutputStream outputStream;
     private InputStream watermarkStream;
+    /**
+     * {@code CENTER} when not set.
+     */
+    private WatermarkPosition position;
+    /**
+     * 0 (invisible) to 1, half transparent when not set.
+     */
+    private Float opacity;
+    /**
+     * Fraction of the page the watermark is fitted into; when not set it is fitted into an A5 page.
+     */
+    private Float scale;
+    /**
+     * Degrees counterclockwise around the watermark center.
+     */
+    private Float rotation;
 }
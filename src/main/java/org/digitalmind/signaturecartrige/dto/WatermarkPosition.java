@@ -0,0 +1,16 @@
+package org.digitalmind.signaturecartrige.dto;
+
+/**
+ * Where a watermark is placed on the page; edge positions put its rotated bounds against the page edges.
+ */
+public enum WatermarkPosition {
+    CENTER,
+    TOP_LEFT,
+    TOP,
+    TOP_RIGHT,
+    LEFT,
+    RIGHT,
+    BOTTOM_LEFT,
+    BOTTOM,
+    BOTTOM_RIGHT
+}
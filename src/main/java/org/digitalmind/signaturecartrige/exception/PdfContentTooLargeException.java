@@ -0,0 +1,9 @@
+package org.digitalmind.signaturecartrige.exception;
+
+public class PdfContentTooLargeException extends PdfUtilRuntimeException {
+
+    public PdfContentTooLargeException(long maxBytes) {
+        super("The document is larger than " + maxBytes + " bytes");
+    }
+
+}
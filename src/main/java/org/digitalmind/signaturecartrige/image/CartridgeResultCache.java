@@ -0,0 +1,111 @@
+package org.digitalmind.signaturecartrige.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.digitalmind.signaturecartrige.dto.SignatureCartridgeRequest;
+import org.digitalmind.signaturecartrige.pdf.PdfTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Encoded signature cartridges keyed by a digest of everything they are rendered from, bounded by the bytes they
+ * hold. The signature is part of the digest as its text, or as the digest of its image content.
+ * <p>
+ * Lookups and stores are separate, so a render does not block the cache: concurrent first requests of the same
+ * cartridge may all render it, the last one stored wins. Hit, miss and eviction counters are available through
+ * {@link #stats()}.
+ */
+public class CartridgeResultCache {
+
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final boolean enabled;
+    private final Cache<String, byte[]> cache;
+
+    public CartridgeResultCache(boolean enabled, long maxBytes, Duration expireAfterWrite) {
+        this.enabled = enabled && maxBytes > 0;
+        Caffeine<String, byte[]> builder = Caffeine.newBuilder()
+                .maximumWeight(Math.max(maxBytes, 0))
+                .weigher((String key, byte[] content) -> content.length + ENTRY_OVERHEAD)
+                .recordStats();
+        if (expireAfterWrite != null && !expireAfterWrite.isZero() && !expireAfterWrite.isNegative()) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        this.cache = builder.build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cache key of a cartridge request at the given size.
+     *
+     * @param signatureDigest the signature text, or the digest of the signature image content
+     */
+    public static String key(SignatureCartridgeRequest request, Integer width, Integer height, String signatureDigest) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            write(out, request.getSession());
+            write(out, signatureDigest);
+            List<String> trace = request.getTrace();
+            out.writeInt(trace != null ? trace.size() : -1);
+            if (trace != null) {
+                for (String line : trace) {
+                    write(out, line);
+                }
+            }
+            write(out, request.getDate());
+            // every field of the normalized configuration, fonts included
+            write(out, String.valueOf(SignatureConfigurationCache.Key.of(request.getConfiguration()).request()));
+            out.writeInt(width != null ? width : -1);
+            out.writeInt(height != null ? height : -1);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write cartridge cache key", e);
+        }
+        return PdfTemplate.digest(buffer.toByteArray());
+    }
+
+    /**
+     * The encoded cartridge, shared: it must not be modified.
+     */
+    public byte[] get(String key) {
+        return enabled ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(String key, byte[] content) {
+        if (enabled) {
+            cache.put(key, content);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static void write(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+}
@@ -0,0 +1,283 @@
+package org.digitalmind.signaturecartrige.image;
+
+import org.digitalmind.signaturecartrige.dto.FontType;
+import org.digitalmind.signaturecartrige.dto.SignatureConfiguration;
+import org.digitalmind.signaturecartrige.dto.SignatureConfigurationRequest;
+import org.digitalmind.signaturecartrige.dto.TextRenderDetails;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The parts of a signature cartridge that only depend on the configuration and the cartridge size, computed once:
+ * the background raster, the rendering hints, the metrics of every text layer at its configured font size and
+ * the border strokes.
+ * <p>
+ * A cartridge is rendered into a copy of the background. Text that fits at the configured size is measured with
+ * one {@link FontMetrics#stringWidth(String)} per line, otherwise {@link TextLayer#fit} returns {@code null} and
+ * the caller shrinks the font as before. Templates are immutable and shared between threads.
+ */
+public final class CartridgeTemplate {
+
+    private static final int IMAGE_TYPE = BufferedImage.TYPE_INT_ARGB;
+    private static final int MAX_BORDER_LAYERS = 16;
+
+    private final SignatureConfiguration configuration;
+    private final int width;
+    private final int height;
+    private final BufferedImage background;
+    private final RenderingHints renderingHints;
+    private final TextLayer sessionLayer;
+    private final TextLayer signatureLayer;
+    private final TextLayer traceLayer;
+    private final TextLayer dateLayer;
+    private final Map<Long, BufferedImage> borderLayers = new ConcurrentHashMap<>();
+
+    private CartridgeTemplate(SignatureConfiguration configuration, int width, int height, BufferedImage background) {
+        this.configuration = configuration;
+        this.width = width;
+        this.height = height;
+        this.background = background;
+
+        RenderingHints renderingHints = new RenderingHints(new HashMap<>());
+        renderingHints.put(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
+        renderingHints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        renderingHints.put(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB);
+        renderingHints.put(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
+        renderingHints.put(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_ENABLE);
+        renderingHints.put(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        renderingHints.put(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        renderingHints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        renderingHints.put(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        this.renderingHints = renderingHints;
+
+        // metrics as measured by the font fitting
+        this.sessionLayer = TextLayer.of(configuration.getSessionLabel(), configuration.getSessionFontType(), configuration.getSessionFont(), configuration.getSessionColor(), configuration);
+        this.signatureLayer = TextLayer.of(null, configuration.getSignatureFontType(), configuration.getSignatureFont(), configuration.getSignatureColor(), configuration);
+        this.traceLayer = TextLayer.of(null, configuration.getTraceFontType(), configuration.getTraceFont(), configuration.getTraceColor(), configuration);
+        this.dateLayer = TextLayer.of(configuration.getDateLabel(), configuration.getDateFontType(), configuration.getDateFont(), configuration.getDateColor(), configuration);
+    }
+
+    /**
+     * @param background the empty cartridge of the full size, as produced for the configured background and
+     *                   transparent colors; it is only read from then on
+     */
+    public static CartridgeTemplate compile(SignatureConfiguration configuration, int width, int height, BufferedImage background) {
+        return new CartridgeTemplate(configuration, width, height, background);
+    }
+
+    public SignatureConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Shared, read only.
+     */
+    public RenderingHints getRenderingHints() {
+        return renderingHints;
+    }
+
+    public TextLayer getSessionLayer() {
+        return sessionLayer;
+    }
+
+    public TextLayer getSignatureLayer() {
+        return signatureLayer;
+    }
+
+    public TextLayer getTraceLayer() {
+        return traceLayer;
+    }
+
+    public TextLayer getDateLayer() {
+        return dateLayer;
+    }
+
+    /**
+     * A new image of the template width and the given height holding a copy of the background.
+     */
+    public BufferedImage newCanvas(int canvasHeight) {
+        return newCanvas(null, canvasHeight);
+    }
+
+    public BufferedImage newCanvas() {
+        return newCanvas(null, height);
+    }
+
+    /**
+     * A canvas taken from the pool, to be released to it once encoded or composited.
+     */
+    public BufferedImage newCanvas(ImageBufferPool imageBufferPool, int canvasHeight) {
+        // the background copy overwrites every row it covers, only rows below it have to be cleared
+        BufferedImage canvas = imageBufferPool != null
+                ? imageBufferPool.acquire(width, canvasHeight, canvasHeight > height)
+                : new BufferedImage(width, canvasHeight, IMAGE_TYPE);
+        canvas.getRaster().setDataElements(0, 0, background.getRaster().createChild(0, 0, width, Math.min(canvasHeight, height), 0, 0, null));
+        return canvas;
+    }
+
+    public BufferedImage newCanvas(ImageBufferPool imageBufferPool) {
+        return newCanvas(imageBufferPool, height);
+    }
+
+    /**
+     * Draw the border of a cartridge whose session line and signature area have the given heights. The strokes are
+     * rendered once per layout into a transparent layer and composited from then on.
+     */
+    public void drawBorder(BufferedImage image, int sessionHeight, int signatureHeight) {
+        long key = ((long) sessionHeight << 32) | (signatureHeight & 0xFFFFFFFFL);
+        BufferedImage borderLayer = borderLayers.get(key);
+        if (borderLayer == null) {
+            borderLayer = new BufferedImage(width, height, IMAGE_TYPE);
+            drawBorder(borderLayer.createGraphics(), sessionHeight, signatureHeight);
+            if (borderLayers.size() < MAX_BORDER_LAYERS) {
+                borderLayers.putIfAbsent(key, borderLayer);
+            }
+        }
+        Graphics2D graphics2D = image.createGraphics();
+        graphics2D.drawImage(borderLayer, null, 0, 0);
+        graphics2D.dispose();
+    }
+
+    private void drawBorder(Graphics2D graphics2D, int sessionHeight, int signatureHeight) {
+        Stroke stroke = new BasicStroke(2f, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_ROUND);
+        graphics2D.setColor(configuration.getBorderColor());
+        graphics2D.setStroke(stroke);
+        int circle = 7;
+        int top = sessionHeight / 2;
+        int left = 10;
+        graphics2D.drawOval(configuration.getSessionFontType().getLeft() - 2 * circle - 1, top - circle / 2, circle, circle);
+        graphics2D.drawLine(configuration.getSessionFontType().getLeft() - 2 * circle, top, left, top);
+        graphics2D.drawLine(left, top, left, sessionHeight + signatureHeight - circle);
+        graphics2D.drawLine(left, sessionHeight + signatureHeight - circle, width - circle, sessionHeight + signatureHeight - circle);
+        graphics2D.drawOval(width - circle, sessionHeight + signatureHeight - circle - circle / 2, circle, circle);
+        graphics2D.dispose();
+    }
+
+    /**
+     * Approximate retained heap: the background and the border layers it may accumulate.
+     */
+    public long getEstimatedSize() {
+        return 4L * width * height * (1 + MAX_BORDER_LAYERS) + 4096;
+    }
+
+    /**
+     * One line group of the cartridge (session, signature text, trace or date) at its configured font size.
+     */
+    public static final class TextLayer {
+
+        private final String label;
+        private final FontType fontType;
+        private final FontMetrics fontMetrics;
+        private final Color backgroundColor;
+        private final Color transparentColor;
+        private final Color foregroundColor;
+
+        private TextLayer(String label, FontType fontType, FontMetrics fontMetrics, Color backgroundColor, Color transparentColor, Color foregroundColor) {
+            this.label = label;
+            this.fontType = fontType;
+            this.fontMetrics = fontMetrics;
+            this.backgroundColor = backgroundColor;
+            this.transparentColor = transparentColor;
+            this.foregroundColor = foregroundColor;
+        }
+
+        private static TextLayer of(String label, FontType fontType, Font font, Color color, SignatureConfiguration configuration) {
+            FontMetrics fontMetrics = null;
+            if (fontType != null && font != null) {
+                fontMetrics = FontFitter.getFontMetrics(font);
+            }
+            return new TextLayer(
+                    label,
+                    fontType != null ? new FontType(fontType) : null,
+                    fontMetrics,
+                    configuration.getBackgroundColor(),
+                    configuration.getTransparentColor(),
+                    color != null ? color : configuration.getForegroundColor()
+            );
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public Color getForegroundColor() {
+            return foregroundColor;
+        }
+
+        /**
+         * The render details of the lines at the configured font size, or {@code null} when they do not fit
+         * into the bounds and the font has to be shrunk.
+         */
+        public TextRenderDetails fit(List<String> lines, Integer maxWidth, Integer maxHeight) {
+            if (fontMetrics == null) {
+                return null;
+            }
+            int lineHeight = fontMetrics.getHeight() + fontType.getTop() + fontType.getBottom();
+            int textHeight = lineHeight * lines.size();
+            if (maxHeight != null && textHeight > maxHeight) {
+                return null;
+            }
+            int textWidth = 0;
+            for (String line : lines) {
+                int lineWidth = fontMetrics.stringWidth(line + " ") + fontType.getLeft() + fontType.getRight();
+                if (lineWidth > textWidth) {
+                    textWidth = lineWidth;
+                }
+            }
+            if (maxWidth != null && textWidth > maxWidth) {
+                return null;
+            }
+            return new TextRenderDetails(textWidth, textHeight, fontType, backgroundColor, transparentColor, foregroundColor);
+        }
+
+    }
+
+    /**
+     * Cache key of a template: the normalized configuration request and the cartridge size.
+     */
+    public static final class Key {
+
+        private final SignatureConfigurationCache.Key configurationKey;
+        private final int width;
+        private final int height;
+
+        public Key(SignatureConfigurationRequest configurationRequest, int width, int height) {
+            this.configurationKey = SignatureConfigurationCache.Key.of(configurationRequest);
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return width == key.width && height == key.height && configurationKey.equals(key.configurationKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(configurationKey, width, height);
+        }
+
+    }
+
+}
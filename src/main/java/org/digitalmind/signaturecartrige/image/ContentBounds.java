@@ -0,0 +1,182 @@
+package org.digitalmind.signaturecartrige.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the bounding box of the pixels that differ from a base color by more than a tolerance, the content of a
+ * scanned signature.
+ * <p>
+ * The distance is the euclidean ARGB distance as a percentage of its maximum (510), compared squared against a
+ * threshold computed once. Rows are scanned inward from the top and the bottom until content is found; the rows in
+ * between are only scanned from each side up to the bounds found so far. Pixels are read from the backing array of
+ * {@code TYPE_INT_ARGB} and {@code TYPE_INT_RGB} images and a scanline at a time otherwise. Images with at least
+ * {@link #PARALLEL_THRESHOLD} pixels scan their inner rows in parallel chunks.
+ */
+public final class ContentBounds {
+
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int CHUNK_ROWS = 64;
+    private static final int MAX_DISTANCE_SQUARED = 4 * 255 * 255;
+
+    private final BufferedImage image;
+    private final int width;
+    private final int height;
+    private final int baseColor;
+    private final int minDistanceSquared;
+    private final int[] data;
+    private final int scanlineStride;
+    private final int alphaMask;
+
+    private ContentBounds(BufferedImage image, int baseColor, double tolerance) {
+        this.image = image;
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.baseColor = baseColor;
+        this.minDistanceSquared = minDistanceSquared(tolerance);
+        if ((image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_RGB)
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getSampleModel() instanceof SinglePixelPackedSampleModel
+                && image.getRaster().getSampleModelTranslateX() == 0
+                && image.getRaster().getSampleModelTranslateY() == 0) {
+            this.data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            this.scanlineStride = ((SinglePixelPackedSampleModel) image.getSampleModel()).getScanlineStride();
+            this.alphaMask = image.getType() == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+        } else {
+            this.data = null;
+            this.scanlineStride = width;
+            this.alphaMask = 0;
+        }
+    }
+
+    /**
+     * @param tolerance percentage of the maximum color distance a pixel has to exceed to count as content
+     * @return the bounds of the content, or {@code null} when every pixel is within the tolerance
+     */
+    public static Rectangle find(BufferedImage image, int baseColor, double tolerance) {
+        return new ContentBounds(image, baseColor, tolerance).find();
+    }
+
+    private Rectangle find() {
+        int[] row = new int[width];
+
+        int top = 0;
+        while (top < height && firstContent(row, top, 0, width) < 0) {
+            top++;
+        }
+        if (top == height) {
+            return null;
+        }
+        int bottom = height - 1;
+        while (bottom > top && firstContent(row, bottom, 0, width) < 0) {
+            bottom--;
+        }
+
+        int[] bounds = {width, -1};
+        if ((long) width * (bottom - top + 1) >= PARALLEL_THRESHOLD) {
+            // the first and last rows hold content, they narrow the bounds every chunk starts from
+            scanSides(row, top, top + 1, bounds);
+            scanSides(row, bottom, bottom + 1, bounds);
+            int first = top;
+            int last = bottom;
+            int[] initial = bounds;
+            int chunks = (last - first + CHUNK_ROWS) / CHUNK_ROWS;
+            bounds = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> {
+                        int[] chunkBounds = initial.clone();
+                        scanSides(new int[width], first + chunk * CHUNK_ROWS, Math.min(last + 1, first + (chunk + 1) * CHUNK_ROWS), chunkBounds);
+                        return chunkBounds;
+                    })
+                    .reduce(initial, (x, y) -> new int[]{Math.min(x[0], y[0]), Math.max(x[1], y[1])});
+        } else {
+            scanSides(row, top, bottom + 1, bounds);
+        }
+        return new Rectangle(bounds[0], top, bounds[1] - bounds[0] + 1, bottom - top + 1);
+    }
+
+    /**
+     * Narrow {@code bounds} ({left, right}) by scanning each row from both sides up to the current bounds.
+     */
+    private void scanSides(int[] row, int fromRow, int toRow, int[] bounds) {
+        for (int y = fromRow; y < toRow; y++) {
+            if (bounds[0] > 0) {
+                int left = firstContent(row, y, 0, bounds[0]);
+                if (left >= 0) {
+                    bounds[0] = left;
+                }
+            }
+            if (bounds[1] < width - 1) {
+                int right = lastContent(row, y, Math.max(bounds[1] + 1, 0), width);
+                if (right >= 0) {
+                    bounds[1] = right;
+                }
+            }
+        }
+    }
+
+    private int firstContent(int[] row, int y, int fromX, int toX) {
+        int offset = read(row, y, fromX, toX);
+        int[] pixels = data != null ? data : row;
+        for (int x = fromX; x < toX; x++) {
+            if (isContent(pixels[offset + x - fromX] | alphaMask)) {
+                return x;
+            }
+        }
+        return -1;
+    }
+
+    private int lastContent(int[] row, int y, int fromX, int toX) {
+        int offset = read(row, y, fromX, toX);
+        int[] pixels = data != null ? data : row;
+        for (int x = toX - 1; x >= fromX; x--) {
+            if (isContent(pixels[offset + x - fromX] | alphaMask)) {
+                return x;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The offset of pixel {@code fromX} of row {@code y} in the backing array, or in {@code row} after reading
+     * the span into it.
+     */
+    private int read(int[] row, int y, int fromX, int toX) {
+        if (data != null) {
+            return y * scanlineStride + fromX;
+        }
+        if (toX > fromX) {
+            image.getRGB(fromX, y, toX - fromX, 1, row, 0, width);
+        }
+        return 0;
+    }
+
+    private boolean isContent(int argb) {
+        int a = (argb >>> 24) - (baseColor >>> 24);
+        int r = ((argb >> 16) & 0xFF) - ((baseColor >> 16) & 0xFF);
+        int g = ((argb >> 8) & 0xFF) - ((baseColor >> 8) & 0xFF);
+        int b = (argb & 0xFF) - (baseColor & 0xFF);
+        return a * a + r * r + g * g + b * b >= minDistanceSquared;
+    }
+
+    /**
+     * The smallest squared distance for which {@code sqrt(d) / 510 * 100 > tolerance} holds, evaluated with the
+     * same floating point expression so the integer comparison agrees with it exactly.
+     */
+    private static int minDistanceSquared(double tolerance) {
+        int lo = 0;
+        int hi = MAX_DISTANCE_SQUARED + 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Math.sqrt(mid) / 510.0d * 100 > tolerance) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+}
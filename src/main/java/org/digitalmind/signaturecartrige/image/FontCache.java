@@ -0,0 +1,155 @@
+package org.digitalmind.signaturecartrige.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.digitalmind.signaturecartrige.exception.PdfUtilRuntimeException;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.awt.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The TrueType fonts of {@code /dss/fonts} on the classpath. Every font file is parsed once into a base font that
+ * is kept for the lifetime of the cache; the sized and styled fonts derived from it are kept in a cache bounded by
+ * entry count, whose hit, miss and eviction counters are available through {@link #stats()}.
+ */
+@Slf4j
+public class FontCache implements FontFitter.FontResolver {
+
+    public static final String FONT_DIRECTORY = "/dss/fonts/";
+    private static final String FONT_EXTENSION = ".ttf";
+
+    private final Map<String, Font> baseFonts = new ConcurrentHashMap<>();
+    private final Cache<Key, Font> derivedFonts;
+
+    public FontCache(long maxDerivedFonts) {
+        this.derivedFonts = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxDerivedFonts, 0))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Parse every font file of the font directory, so that no request pays for it; files that fail to parse are
+     * logged and left to fail when requested.
+     *
+     * @return the number of base fonts loaded
+     */
+    public int preload() {
+        Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver(FontCache.class.getClassLoader())
+                    .getResources("classpath*:" + FONT_DIRECTORY + "*" + FONT_EXTENSION);
+        } catch (IOException e) {
+            log.warn("Unable to list the fonts of {}", FONT_DIRECTORY, e);
+            return 0;
+        }
+        for (Resource resource : resources) {
+            String fileName = resource.getFilename();
+            try {
+                getBaseFont(fileName.substring(0, fileName.length() - FONT_EXTENSION.length()));
+            } catch (PdfUtilRuntimeException e) {
+                log.warn("Unable to preload font {}", fileName, e);
+            }
+        }
+        return baseFonts.size();
+    }
+
+    /**
+     * The font of the given name derived to the style and size that are not {@code null}.
+     */
+    @Override
+    public Font getFont(String name, Integer style, Float size) {
+        return derivedFonts.get(new Key(name, style, size), key -> derive(getBaseFont(key.name), key.style, key.size));
+    }
+
+    /**
+     * The font as parsed from its file, at 1pt and plain style.
+     */
+    public Font getBaseFont(String name) {
+        String fileName = name.toLowerCase().endsWith(FONT_EXTENSION) ? name : name + FONT_EXTENSION;
+        return baseFonts.computeIfAbsent(fileName, FontCache::load);
+    }
+
+    public int getBaseFontCount() {
+        return baseFonts.size();
+    }
+
+    public long size() {
+        return derivedFonts.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return derivedFonts.stats();
+    }
+
+    public void invalidateAll() {
+        derivedFonts.invalidateAll();
+    }
+
+    private static Font load(String fileName) {
+        try (InputStream is = FontCache.class.getResourceAsStream(FONT_DIRECTORY + fileName)) {
+            if (is == null) {
+                throw new IOException("Font file not found: " + FONT_DIRECTORY + fileName);
+            }
+            return Font.createFont(Font.TRUETYPE_FONT, is);
+        } catch (FontFormatException | IOException e) {
+            throw new PdfUtilRuntimeException("Exception loading font " + fileName, e);
+        }
+    }
+
+    private static Font derive(Font font, Integer style, Float size) {
+        if (size != null && style != null) {
+            return font.deriveFont(style, size);
+        }
+        if (size != null) {
+            return font.deriveFont(size);
+        }
+        if (style != null) {
+            return font.deriveFont(style);
+        }
+        return font;
+    }
+
+    /**
+     * Font name, style and size as requested; {@code null} style or size keep the ones of the base font.
+     */
+    private static final class Key {
+
+        private final String name;
+        private final Integer style;
+        private final Float size;
+
+        private Key(String name, Integer style, Float size) {
+            this.name = name;
+            this.style = style;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return name.equals(key.name) && Objects.equals(style, key.style) && Objects.equals(size, key.size);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, style, size);
+        }
+
+    }
+
+}
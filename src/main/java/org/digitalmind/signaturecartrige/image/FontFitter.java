@@ -0,0 +1,199 @@
+package org.digitalmind.signaturecartrige.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the largest font size, in 1pt steps down from the requested one, at which a block of lines fits into
+ * the given bounds.
+ * <p>
+ * Instead of measuring every step, the first probe is the size the text would need if its advance scaled linearly
+ * with the font size, and the remaining range is bisected; every probe is measured with the real font metrics, so
+ * the result is the size a 1pt-at-a-time descent would stop at. Line widths are memoized by font and text.
+ */
+public class FontFitter {
+
+    @FunctionalInterface
+    public interface FontResolver {
+        Font getFont(String name, Integer style, Float size);
+    }
+
+    /**
+     * The fitted font and the size of the block at that font.
+     */
+    public static final class Fit {
+
+        private final Font font;
+        private final float size;
+        private final int width;
+        private final int height;
+
+        private Fit(Font font, float size, int width, int height) {
+            this.font = font;
+            this.size = size;
+            this.width = width;
+            this.height = height;
+        }
+
+        public Font getFont() {
+            return font;
+        }
+
+        public float getSize() {
+            return size;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+    }
+
+    // only used to look up metrics for the default rendering context of an ARGB image, never drawn on
+    private static final Graphics2D METRICS_GRAPHICS = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+
+    private final FontResolver fontResolver;
+    private final int maxMemoEntries;
+    private final Map<LineKey, Integer> lineWidths = new ConcurrentHashMap<>();
+
+    public FontFitter(FontResolver fontResolver, int maxMemoEntries) {
+        this.fontResolver = fontResolver;
+        this.maxMemoEntries = maxMemoEntries;
+    }
+
+    /**
+     * The metrics of a font in the default rendering context of an ARGB image, as every text of a cartridge is
+     * drawn in; shared, no helper image is needed to measure.
+     */
+    public static FontMetrics getFontMetrics(Font font) {
+        return METRICS_GRAPHICS.getFontMetrics(font);
+    }
+
+    /**
+     * @param minSize sizes are tried while they stay above this bound; the requested size is always tried
+     */
+    public Fit fit(List<String> lines, String fontName, Integer fontStyle, float fontSize, float minSize,
+                   int left, int right, int top, int bottom, Integer maxWidth, Integer maxHeight) {
+        // the descent tries fontSize - k for k = 0..maxStep
+        int maxStep = Math.max(0, (int) Math.ceil(fontSize - minSize) - 1);
+
+        Fit fit = measure(lines, fontName, fontStyle, fontSize, left, right, top, bottom);
+        if (fits(fit, maxWidth, maxHeight) || maxStep == 0) {
+            return fit;
+        }
+
+        // invariant: fontSize - hi does not fit, fontSize - lo fits or lo is the last step
+        int hi = 0;
+        int lo = maxStep;
+        Fit loFit = null;
+
+        // the first probe assumes the block scales linearly with the size, the second checks its neighbour
+        int next = maxStep;
+        double ratio = scaleRatio(fit, maxWidth, maxHeight, left + right, top + bottom, lines.size());
+        if (ratio > 0) {
+            next = Math.min(maxStep, Math.max(1, (int) Math.floor(fontSize - fontSize * ratio)));
+        }
+        int probes = 0;
+        while (lo - hi > 1 || loFit == null) {
+            int step = next > hi && next < lo ? next : (lo - hi > 1 ? (hi + lo) >>> 1 : lo);
+            Fit probe = measure(lines, fontName, fontStyle, fontSize - step, left, right, top, bottom);
+            boolean fits = fits(probe, maxWidth, maxHeight) || step == maxStep;
+            if (fits) {
+                lo = step;
+                loFit = probe;
+            } else {
+                hi = step;
+            }
+            next = probes++ == 0 ? (fits ? step - 1 : step + 1) : -1;
+        }
+        return loFit;
+    }
+
+    public Fit measure(List<String> lines, String fontName, Integer fontStyle, float fontSize,
+                       int left, int right, int top, int bottom) {
+        Font font = fontResolver.getFont(fontName, fontStyle, fontSize);
+        FontMetrics fontMetrics = getFontMetrics(font);
+        int width = 0;
+        int height = (fontMetrics.getHeight() + top + bottom) * lines.size();
+        for (String line : lines) {
+            int lineWidth = lineWidth(font, fontMetrics, line) + left + right;
+            if (lineWidth > width) {
+                width = lineWidth;
+            }
+        }
+        return new Fit(font, fontSize, width, height);
+    }
+
+    private int lineWidth(Font font, FontMetrics fontMetrics, String line) {
+        LineKey key = new LineKey(font, line);
+        Integer width = lineWidths.get(key);
+        if (width == null) {
+            width = fontMetrics.stringWidth(line + " ");
+            // a plain map is cheaper than an LRU on the miss path; when full it is simply started over
+            if (lineWidths.size() >= maxMemoEntries) {
+                lineWidths.clear();
+            }
+            lineWidths.put(key, width);
+        }
+        return width;
+    }
+
+    private static boolean fits(Fit fit, Integer maxWidth, Integer maxHeight) {
+        return (maxWidth == null || fit.getWidth() <= maxWidth) && (maxHeight == null || fit.getHeight() <= maxHeight);
+    }
+
+    /**
+     * How much the font has to shrink if glyph advances and line heights scaled linearly with the size.
+     */
+    private static double scaleRatio(Fit fit, Integer maxWidth, Integer maxHeight, int horizontalPadding, int verticalPadding, int lineCount) {
+        double ratio = 1;
+        if (maxWidth != null && fit.getWidth() > maxWidth) {
+            int text = fit.getWidth() - horizontalPadding;
+            ratio = text > 0 ? Math.min(ratio, (double) (maxWidth - horizontalPadding) / text) : ratio;
+        }
+        if (maxHeight != null && fit.getHeight() > maxHeight) {
+            int text = fit.getHeight() - verticalPadding * lineCount;
+            ratio = text > 0 ? Math.min(ratio, (double) (maxHeight - verticalPadding * lineCount) / text) : ratio;
+        }
+        return ratio;
+    }
+
+    private static final class LineKey {
+
+        private final Font font;
+        private final String line;
+        private final int hashCode;
+
+        private LineKey(Font font, String line) {
+            this.font = font;
+            this.line = line;
+            this.hashCode = 31 * font.hashCode() + line.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LineKey)) {
+                return false;
+            }
+            LineKey lineKey = (LineKey) o;
+            return font.equals(lineKey.font) && line.equals(lineKey.line);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+}
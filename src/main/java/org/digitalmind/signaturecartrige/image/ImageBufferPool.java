@@ -0,0 +1,110 @@
+package org.digitalmind.signaturecartrige.image;
+
+import java.awt.image.*;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Hashtable;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reuses the pixel arrays of short lived {@link BufferedImage#TYPE_INT_ARGB} images.
+ * <p>
+ * Arrays are kept in buckets of power of two capacities, so an image is backed by an array of at most twice its
+ * size, and the bytes retained by all buckets are capped; an array released beyond the cap is left to the garbage
+ * collector. Only images acquired from this pool can be released to it, other images are ignored. A released
+ * image must not be used anymore, its pixels are handed to the next {@link #acquire}.
+ */
+public final class ImageBufferPool {
+
+    private static final String POOL_PROPERTY = ImageBufferPool.class.getName();
+    private static final int MIN_BUCKET = 10;
+    private static final int MAX_BUCKET = 30;
+    private static final int[] MASKS = {0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000};
+
+    private final long maxRetainedBytes;
+    private final Deque<int[]>[] buckets;
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Hashtable<String, Object> properties = new Hashtable<>();
+
+    /**
+     * @param maxRetainedBytes cap of the pixel bytes kept for reuse; {@code 0} allocates plain images and
+     *                         retains nothing
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ImageBufferPool(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.buckets = new Deque[MAX_BUCKET + 1];
+        for (int i = MIN_BUCKET; i <= MAX_BUCKET; i++) {
+            buckets[i] = new ConcurrentLinkedDeque<>();
+        }
+        this.properties.put(POOL_PROPERTY, this);
+    }
+
+    /**
+     * A transparent image of the given size.
+     */
+    public BufferedImage acquire(int width, int height) {
+        return acquire(width, height, true);
+    }
+
+    /**
+     * @param clear {@code false} when the caller overwrites every pixel, the image holds leftover pixels then
+     */
+    public BufferedImage acquire(int width, int height, boolean clear) {
+        int size = width * height;
+        int bucket = bucket(size);
+        if (maxRetainedBytes <= 0 || bucket > MAX_BUCKET) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        int[] data = buckets[bucket].pollFirst();
+        if (data != null) {
+            retainedBytes.addAndGet(-4L * data.length);
+            hits.incrementAndGet();
+            if (clear) {
+                Arrays.fill(data, 0, size, 0);
+            }
+        } else {
+            misses.incrementAndGet();
+            data = new int[1 << bucket];
+        }
+        WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(data, size), width, height, width, MASKS, null);
+        return new BufferedImage(ColorModel.getRGBdefault(), raster, false, properties);
+    }
+
+    /**
+     * Give the pixels of an image acquired from this pool back for reuse; {@code null} and other images are
+     * ignored.
+     */
+    public void release(BufferedImage image) {
+        if (image == null || image.getProperty(POOL_PROPERTY) != this) {
+            return;
+        }
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        long bytes = 4L * data.length;
+        if (retainedBytes.addAndGet(bytes) > maxRetainedBytes) {
+            retainedBytes.addAndGet(-bytes);
+            return;
+        }
+        buckets[Integer.numberOfTrailingZeros(data.length)].offerFirst(data);
+    }
+
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static int bucket(int size) {
+        return Math.max(MIN_BUCKET, 32 - Integer.numberOfLeadingZeros(Math.max(1, size) - 1));
+    }
+
+}
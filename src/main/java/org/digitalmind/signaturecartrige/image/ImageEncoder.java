@@ -0,0 +1,18 @@
+package org.digitalmind.signaturecartrige.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes an image in one format. Implementations are shared between threads.
+ */
+@FunctionalInterface
+public interface ImageEncoder {
+
+    /**
+     * Encode the image to the stream, leaving the stream open.
+     */
+    void encode(BufferedImage image, OutputStream out) throws IOException;
+
+}
@@ -0,0 +1,59 @@
+package org.digitalmind.signaturecartrige.image;
+
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
+import org.digitalmind.signaturecartrige.enumeration.SignatureImageType;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link ImageEncoder} of every {@link SignatureImageType}. JPG and BMP are written onto a white matte as they
+ * have no alpha channel; PNG uses {@link PngEncoder} unless the {@code ImageIO} writer is configured. Any type can
+ * be given another encoder with {@link #register}.
+ */
+public class ImageEncoders {
+
+    private final Map<SignatureImageType, ImageEncoder> encoders = new ConcurrentHashMap<>();
+    private final PngEncoder pngEncoder;
+
+    public ImageEncoders(SignatureCartrigeProperties.Encoder properties) {
+        int pngCompressionLevel = properties.getPngCompressionLevel();
+        pngEncoder = properties.isFastPng() ? new PngEncoder(pngCompressionLevel, properties.getPngFilter()) : null;
+        encoders.put(SignatureImageType.PNG, pngEncoder != null
+                ? pngEncoder
+                : new ImageIoEncoder("png", 1f - pngCompressionLevel / 9f, null));
+        encoders.put(SignatureImageType.JPG, new ImageIoEncoder("jpg", properties.getJpegQuality(), Color.WHITE));
+        encoders.put(SignatureImageType.GIF, new ImageIoEncoder("gif", null, null));
+        encoders.put(SignatureImageType.BMP, new ImageIoEncoder("bmp", null, Color.WHITE));
+    }
+
+    public void register(SignatureImageType imageType, ImageEncoder encoder) {
+        encoders.put(imageType, encoder);
+    }
+
+    public ImageEncoder get(SignatureImageType imageType) {
+        return encoders.get(imageType);
+    }
+
+    /**
+     * Releases what the encoders created here hold; registered encoders belong to whoever registered them.
+     */
+    public void shutdown() {
+        if (pngEncoder != null) {
+            pngEncoder.shutdown();
+        }
+    }
+
+    public void encode(SignatureImageType imageType, BufferedImage image, OutputStream out) throws IOException {
+        ImageEncoder encoder = encoders.get(imageType);
+        if (encoder == null) {
+            throw new IOException("No image encoder for " + imageType);
+        }
+        encoder.encode(image, out);
+    }
+
+}
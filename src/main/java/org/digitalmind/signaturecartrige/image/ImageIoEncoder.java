@@ -0,0 +1,85 @@
+package org.digitalmind.signaturecartrige.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * An {@link ImageEncoder} on top of an {@link ImageWriter} of one format.
+ * <p>
+ * The writer is looked up once per thread and reset after every image, the output is buffered in memory rather
+ * than in the {@code ImageIO} cache file, and the compression quality is set explicitly when the writer supports
+ * it. Formats without an alpha channel get the image composited onto an opaque matte first, as their writers
+ * reject ARGB rasters.
+ */
+public class ImageIoEncoder implements ImageEncoder {
+
+    private final String formatName;
+    private final Float compressionQuality;
+    private final Color matte;
+    private final ThreadLocal<ImageWriter> writers;
+
+    /**
+     * @param compressionQuality 0 to 1, {@code null} for the writer default
+     * @param matte              background of formats without alpha, {@code null} for formats that keep it
+     */
+    public ImageIoEncoder(String formatName, Float compressionQuality, Color matte) {
+        this.formatName = formatName;
+        this.compressionQuality = compressionQuality;
+        this.matte = matte;
+        this.writers = ThreadLocal.withInitial(this::createWriter);
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        BufferedImage target = matte != null ? flatten(image, matte) : image;
+        ImageWriter writer = writers.get();
+        if (writer == null) {
+            throw new IOException("No image writer for format " + formatName);
+        }
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (compressionQuality != null && param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            if (param.getCompressionType() == null && param.getCompressionTypes() != null && param.getCompressionTypes().length > 0) {
+                param.setCompressionType(param.getCompressionTypes()[0]);
+            }
+            param.setCompressionQuality(compressionQuality);
+        }
+        try (ImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(target, null, null), param);
+        } finally {
+            writer.reset();
+        }
+    }
+
+    private ImageWriter createWriter() {
+        Iterator<ImageWriter> iterator = ImageIO.getImageWritersByFormatName(formatName);
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /**
+     * The image as {@code TYPE_INT_RGB}, its translucent pixels blended onto the matte; opaque RGB images as is.
+     */
+    public static BufferedImage flatten(BufferedImage image, Color matte) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
+        }
+        BufferedImage rgbImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics2D = rgbImage.createGraphics();
+        graphics2D.setColor(matte);
+        graphics2D.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics2D.drawImage(image, 0, 0, null);
+        graphics2D.dispose();
+        return rgbImage;
+    }
+
+}
@@ -0,0 +1,320 @@
+package org.digitalmind.signaturecartrige.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Resizes images to an exact size into a new {@link BufferedImage#TYPE_INT_ARGB} image.
+ * <p>
+ * A single bilinear draw only looks at the four source pixels around each target pixel, so shrinking a large
+ * upload by more than half skips most of it and aliases. {@link Strategy#AUTO} keeps the single draw for ratios of
+ * one half and up and for enlarging, halves the image with 2x2 box averages down to the last step above the
+ * target, averages whole areas for large reductions and samples the nearest pixel for tiny targets. Averaging
+ * is done on the raw pixels with premultiplied alpha; images with at least {@link #PARALLEL_THRESHOLD} source
+ * pixels are averaged in row chunks on the common fork-join pool.
+ * <p>
+ * Given an {@link ImageBufferPool}, the result and the intermediate halvings are taken from it and the
+ * intermediates are released to it again; the source image is never released.
+ */
+public final class ImageScaler {
+
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+    /**
+     * Targets whose larger side is at most this many pixels are sampled with {@link Strategy#NEAREST}.
+     */
+    public static final int NEAREST_MAX_SIZE = 16;
+    /**
+     * Reductions below this ratio use {@link Strategy#AREA_AVERAGING} rather than {@link Strategy#PROGRESSIVE}.
+     */
+    public static final double AREA_AVERAGING_MAX_RATIO = 1d / 8;
+
+    private static final int IMAGE_TYPE = BufferedImage.TYPE_INT_ARGB;
+    private static final int CHUNK_ROWS = 16;
+
+    public enum Strategy {
+        /**
+         * Pick one of the others by scale ratio and target size.
+         */
+        AUTO,
+        /**
+         * One bilinear draw from the source to the target size.
+         */
+        BILINEAR,
+        /**
+         * 2x2 box halving while the image stays at least as large as the target, then one bilinear draw.
+         */
+        PROGRESSIVE,
+        /**
+         * Every target pixel is the weighted average of the source area it covers; 2x2 box halving down to twice
+         * the target first, which averages the same areas.
+         */
+        AREA_AVERAGING,
+        /**
+         * Every target pixel is the source pixel at its center.
+         */
+        NEAREST
+    }
+
+    private ImageScaler() {
+    }
+
+    public static BufferedImage scale(BufferedImage image, int width, int height, Strategy strategy) {
+        return scale(image, width, height, strategy, null);
+    }
+
+    public static BufferedImage scale(BufferedImage image, int width, int height, Strategy strategy, ImageBufferPool imageBufferPool) {
+        switch (resolve(image.getWidth(), image.getHeight(), width, height, strategy)) {
+            case PROGRESSIVE:
+                return progressive(image, width, height, imageBufferPool);
+            case AREA_AVERAGING:
+                return areaAverage(image, width, height, imageBufferPool);
+            case NEAREST:
+                return nearest(image, width, height, imageBufferPool);
+            default:
+                return bilinear(image, width, height, imageBufferPool);
+        }
+    }
+
+    public static Strategy resolve(int sourceWidth, int sourceHeight, int width, int height, Strategy strategy) {
+        if (strategy != null && strategy != Strategy.AUTO) {
+            return strategy;
+        }
+        double ratio = Math.min((double) width / sourceWidth, (double) height / sourceHeight);
+        if (ratio >= 0.5d) {
+            return Strategy.BILINEAR;
+        }
+        if (Math.max(width, height) <= NEAREST_MAX_SIZE) {
+            return Strategy.NEAREST;
+        }
+        return ratio < AREA_AVERAGING_MAX_RATIO ? Strategy.AREA_AVERAGING : Strategy.PROGRESSIVE;
+    }
+
+    private static BufferedImage bilinear(BufferedImage image, int width, int height, ImageBufferPool imageBufferPool) {
+        BufferedImage newImage = newImage(width, height, true, imageBufferPool);
+        Graphics2D graphics2D = newImage.createGraphics();
+        graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics2D.drawImage(image, 0, 0, width, height, null);
+        graphics2D.dispose();
+        return newImage;
+    }
+
+    private static BufferedImage progressive(BufferedImage image, int width, int height, ImageBufferPool imageBufferPool) {
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = halve(current, image, imageBufferPool);
+        }
+        if (current.getWidth() == width && current.getHeight() == height) {
+            return current;
+        }
+        BufferedImage newImage = bilinear(current, width, height, imageBufferPool);
+        releaseIntermediate(current, image, imageBufferPool);
+        return newImage;
+    }
+
+    /**
+     * Halves the image, releasing it when it is an intermediate of the given source.
+     */
+    private static BufferedImage halve(BufferedImage image, BufferedImage source, ImageBufferPool imageBufferPool) {
+        BufferedImage newImage = halve(image, imageBufferPool);
+        releaseIntermediate(image, source, imageBufferPool);
+        return newImage;
+    }
+
+    private static BufferedImage halve(BufferedImage image, ImageBufferPool imageBufferPool) {
+        int width = image.getWidth() / 2;
+        int height = image.getHeight() / 2;
+        BufferedImage newImage = newImage(width, height, false, imageBufferPool);
+        int[] target = pixels(newImage);
+        PixelRows rows = new PixelRows(image);
+        forEachChunk(image, height, (fromRow, toRow) -> {
+            int[] upper = new int[image.getWidth()];
+            int[] lower = new int[image.getWidth()];
+            for (int y = fromRow; y < toRow; y++) {
+                rows.read(2 * y, upper);
+                rows.read(2 * y + 1, lower);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    int p0 = upper[2 * x];
+                    int p1 = upper[2 * x + 1];
+                    int p2 = lower[2 * x];
+                    int p3 = lower[2 * x + 1];
+                    int a0 = p0 >>> 24;
+                    int a1 = p1 >>> 24;
+                    int a2 = p2 >>> 24;
+                    int a3 = p3 >>> 24;
+                    if (a0 == a1 && a0 == a2 && a0 == a3) {
+                        // uniform alpha, the premultiplication cancels out; red and blue, then green, are summed side by side in one int
+                        target[offset + x] = a0 == 0 ? 0 : a0 << 24
+                                | ((((p0 & 0xFF00FF) + (p1 & 0xFF00FF) + (p2 & 0xFF00FF) + (p3 & 0xFF00FF) + 0x20002) >> 2) & 0xFF00FF)
+                                | ((((p0 & 0xFF00) + (p1 & 0xFF00) + (p2 & 0xFF00) + (p3 & 0xFF00) + 0x200) >> 2) & 0xFF00);
+                        continue;
+                    }
+                    int alpha = a0 + a1 + a2 + a3;
+                    int red = ((p0 >> 16) & 0xFF) * a0 + ((p1 >> 16) & 0xFF) * a1 + ((p2 >> 16) & 0xFF) * a2 + ((p3 >> 16) & 0xFF) * a3;
+                    int green = ((p0 >> 8) & 0xFF) * a0 + ((p1 >> 8) & 0xFF) * a1 + ((p2 >> 8) & 0xFF) * a2 + ((p3 >> 8) & 0xFF) * a3;
+                    int blue = (p0 & 0xFF) * a0 + (p1 & 0xFF) * a1 + (p2 & 0xFF) * a2 + (p3 & 0xFF) * a3;
+                    int half = alpha >> 1;
+                    target[offset + x] = ((alpha + 2) >> 2) << 24
+                            | ((red + half) / alpha) << 16
+                            | ((green + half) / alpha) << 8
+                            | (blue + half) / alpha;
+                }
+            }
+        });
+        return newImage;
+    }
+
+    private static BufferedImage areaAverage(BufferedImage source, int width, int height, ImageBufferPool imageBufferPool) {
+        // a 2x2 box is the area average of a halving step, so only the last reduction needs the weights
+        BufferedImage image = source;
+        while (image.getWidth() / 2 >= 2 * width && image.getHeight() / 2 >= 2 * height) {
+            image = halve(image, source, imageBufferPool);
+        }
+        int sourceWidth = image.getWidth();
+        Weights columns = new Weights(sourceWidth, width);
+        Weights rowWeights = new Weights(image.getHeight(), height);
+        float area = (float) ((double) sourceWidth / width * image.getHeight() / height);
+        BufferedImage newImage = newImage(width, height, false, imageBufferPool);
+        int[] target = pixels(newImage);
+        PixelRows rows = new PixelRows(image);
+        forEachChunk(image, height, (fromRow, toRow) -> {
+            int[] row = new int[sourceWidth];
+            float[] sums = new float[width * 4];
+            for (int y = fromRow; y < toRow; y++) {
+                Arrays.fill(sums, 0f);
+                for (int j = rowWeights.from[y]; j < rowWeights.from[y + 1]; j++) {
+                    rows.read(rowWeights.index[j], row);
+                    float rowWeight = rowWeights.weight[j];
+                    for (int x = 0; x < width; x++) {
+                        float a = 0;
+                        float r = 0;
+                        float g = 0;
+                        float b = 0;
+                        for (int i = columns.from[x]; i < columns.from[x + 1]; i++) {
+                            int p = row[columns.index[i]];
+                            float weightedAlpha = columns.weight[i] * (p >>> 24);
+                            a += weightedAlpha;
+                            r += weightedAlpha * ((p >> 16) & 0xFF);
+                            g += weightedAlpha * ((p >> 8) & 0xFF);
+                            b += weightedAlpha * (p & 0xFF);
+                        }
+                        int k = 4 * x;
+                        sums[k] += rowWeight * a;
+                        sums[k + 1] += rowWeight * r;
+                        sums[k + 2] += rowWeight * g;
+                        sums[k + 3] += rowWeight * b;
+                    }
+                }
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    int k = 4 * x;
+                    float a = sums[k];
+                    if (a <= 0) {
+                        target[offset + x] = 0;
+                        continue;
+                    }
+                    target[offset + x] = channel(a / area) << 24
+                            | channel(sums[k + 1] / a) << 16
+                            | channel(sums[k + 2] / a) << 8
+                            | channel(sums[k + 3] / a);
+                }
+            }
+        });
+        releaseIntermediate(image, source, imageBufferPool);
+        return newImage;
+    }
+
+    private static BufferedImage nearest(BufferedImage image, int width, int height, ImageBufferPool imageBufferPool) {
+        int[] columns = new int[width];
+        for (int x = 0; x < width; x++) {
+            columns[x] = Math.min(image.getWidth() - 1, (int) ((x + 0.5d) * image.getWidth() / width));
+        }
+        BufferedImage newImage = newImage(width, height, false, imageBufferPool);
+        int[] target = pixels(newImage);
+        PixelRows rows = new PixelRows(image);
+        int[] row = new int[image.getWidth()];
+        for (int y = 0; y < height; y++) {
+            rows.read(Math.min(image.getHeight() - 1, (int) ((y + 0.5d) * image.getHeight() / height)), row);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                target[offset + x] = row[columns[x]];
+            }
+        }
+        return newImage;
+    }
+
+    /**
+     * @param clear {@code false} when every pixel is written, a pooled image may hold leftover pixels then
+     */
+    private static BufferedImage newImage(int width, int height, boolean clear, ImageBufferPool imageBufferPool) {
+        return imageBufferPool != null ? imageBufferPool.acquire(width, height, clear) : new BufferedImage(width, height, IMAGE_TYPE);
+    }
+
+    private static void releaseIntermediate(BufferedImage image, BufferedImage source, ImageBufferPool imageBufferPool) {
+        if (imageBufferPool != null && image != source) {
+            imageBufferPool.release(image);
+        }
+    }
+
+    private static int channel(float value) {
+        return Math.min(255, (int) (value + 0.5f));
+    }
+
+    private static int[] pixels(BufferedImage newImage) {
+        return ((DataBufferInt) newImage.getRaster().getDataBuffer()).getData();
+    }
+
+    @FunctionalInterface
+    private interface RowRange {
+        void apply(int fromRow, int toRow);
+    }
+
+    private static void forEachChunk(BufferedImage source, int rows, RowRange range) {
+        if ((long) source.getWidth() * source.getHeight() >= PARALLEL_THRESHOLD) {
+            int chunks = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+            IntStream.range(0, chunks).parallel().forEach(chunk ->
+                    range.apply(chunk * CHUNK_ROWS, Math.min(rows, (chunk + 1) * CHUNK_ROWS))
+            );
+        } else {
+            range.apply(0, rows);
+        }
+    }
+
+    /**
+     * The source pixels covered by each target pixel along one axis and the share of each, as a fraction of
+     * a source pixel: target {@code t} covers {@code index[from[t]] .. index[from[t + 1] - 1]}.
+     */
+    private static final class Weights {
+
+        private final int[] from;
+        private final int[] index;
+        private final float[] weight;
+
+        private Weights(int sourceSize, int size) {
+            double scale = (double) sourceSize / size;
+            this.from = new int[size + 1];
+            this.index = new int[sourceSize + size];
+            this.weight = new float[sourceSize + size];
+            int n = 0;
+            for (int t = 0; t < size; t++) {
+                from[t] = n;
+                double start = t * scale;
+                double end = Math.min(sourceSize, (t + 1) * scale);
+                for (int s = (int) start; s < end && s < sourceSize; s++) {
+                    double share = Math.min(s + 1, end) - Math.max(s, start);
+                    if (share > 0) {
+                        index[n] = s;
+                        weight[n] = (float) share;
+                        n++;
+                    }
+                }
+            }
+            from[size] = n;
+        }
+
+    }
+
+}
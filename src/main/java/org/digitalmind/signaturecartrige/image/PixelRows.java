@@ -0,0 +1,74 @@
+package org.digitalmind.signaturecartrige.image;
+
+import java.awt.image.*;
+
+/**
+ * Reads source rows as non premultiplied ARGB: straight from the backing array of the {@code TYPE_INT_ARGB},
+ * {@code TYPE_INT_RGB}, {@code TYPE_3BYTE_BGR} and {@code TYPE_4BYTE_ABGR} images {@code ImageIO} decodes
+ * to, through {@link BufferedImage#getRGB} otherwise.
+ */
+final class PixelRows {
+
+    private final BufferedImage image;
+    private final int type;
+    private final int width;
+    private final int[] data;
+    private final byte[] bytes;
+    private final int scanlineStride;
+
+    PixelRows(BufferedImage image) {
+        this.image = image;
+        this.width = image.getWidth();
+        WritableRaster raster = image.getRaster();
+        boolean untranslated = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0;
+        int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+                && untranslated
+                && raster.getDataBuffer() instanceof DataBufferInt
+                && image.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+            this.data = ((DataBufferInt) raster.getDataBuffer()).getData();
+            this.bytes = null;
+            this.scanlineStride = ((SinglePixelPackedSampleModel) image.getSampleModel()).getScanlineStride();
+        } else if ((type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_4BYTE_ABGR)
+                && untranslated
+                && raster.getDataBuffer() instanceof DataBufferByte
+                && image.getSampleModel() instanceof PixelInterleavedSampleModel) {
+            this.data = null;
+            this.bytes = ((DataBufferByte) raster.getDataBuffer()).getData();
+            this.scanlineStride = ((PixelInterleavedSampleModel) image.getSampleModel()).getScanlineStride();
+        } else {
+            type = BufferedImage.TYPE_CUSTOM;
+            this.data = null;
+            this.bytes = null;
+            this.scanlineStride = width;
+        }
+        this.type = type;
+    }
+
+    void read(int y, int[] row) {
+        int offset = y * scanlineStride;
+        switch (type) {
+            case BufferedImage.TYPE_INT_ARGB:
+                System.arraycopy(data, offset, row, 0, width);
+                break;
+            case BufferedImage.TYPE_INT_RGB:
+                for (int x = 0; x < width; x++) {
+                    row[x] = data[offset + x] | 0xFF000000;
+                }
+                break;
+            case BufferedImage.TYPE_3BYTE_BGR:
+                for (int x = 0, i = offset; x < width; x++, i += 3) {
+                    row[x] = 0xFF000000 | (bytes[i + 2] & 0xFF) << 16 | (bytes[i + 1] & 0xFF) << 8 | (bytes[i] & 0xFF);
+                }
+                break;
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                for (int x = 0, i = offset; x < width; x++, i += 4) {
+                    row[x] = (bytes[i] & 0xFF) << 24 | (bytes[i + 3] & 0xFF) << 16 | (bytes[i + 2] & 0xFF) << 8 | (bytes[i + 1] & 0xFF);
+                }
+                break;
+            default:
+                image.getRGB(0, y, width, 1, row, 0, width);
+        }
+    }
+
+}
@@ -0,0 +1,278 @@
+package org.digitalmind.signaturecartrige.image;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A PNG encoder for 8 bit truecolor images, RGBA when the color model has alpha and RGB otherwise, with a
+ * selectable row filter and deflate level.
+ * <p>
+ * Rows are read straight from the raster and the whole image data goes into one {@code IDAT} chunk. The bytes
+ * differ from the {@code ImageIO} output, the pixels they decode to do not. Up to one idle {@link Deflater} per
+ * processor is kept for reuse; any other is ended once its image is encoded, and {@link #shutdown} ends the idle
+ * ones.
+ */
+public class PngEncoder implements ImageEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int COLOR_TYPE_RGBA = 6;
+
+    public enum Filter {
+        NONE,
+        SUB,
+        UP,
+        AVERAGE,
+        PAETH,
+        /**
+         * Per row, the filter whose output has the smallest sum of absolute values, as libpng does.
+         */
+        ADAPTIVE
+    }
+
+    private final int compressionLevel;
+    private final Filter filter;
+    private final BlockingQueue<Deflater> idleDeflaters = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+    private volatile boolean shutdown;
+
+    /**
+     * @param compressionLevel deflate level, 0 (stored) to 9
+     */
+    public PngEncoder(int compressionLevel, Filter filter) {
+        if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("PNG compression level must be between 0 and 9: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+        this.filter = filter != null ? filter : Filter.ADAPTIVE;
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream out) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean alpha = image.getColorModel().hasAlpha();
+        int bytesPerPixel = alpha ? 4 : 3;
+        int rowLength = width * bytesPerPixel;
+
+        Deflater deflater = acquireDeflater();
+        ChunkBuffer data = new ChunkBuffer(Math.max(1024, height * (rowLength + 1) / 4));
+        try {
+            DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(data, deflater, 1 << 16);
+
+            PixelRows rows = new PixelRows(image);
+            int[] argb = new int[width];
+            byte[] row = new byte[rowLength];
+            // the first row is filtered against a row of zeros, as the format defines
+            byte[] prior = new byte[rowLength];
+            byte[] filtered = new byte[rowLength + 1];
+            for (int y = 0; y < height; y++) {
+                rows.read(y, argb);
+                if (alpha) {
+                    for (int x = 0, i = 0; x < width; x++, i += 4) {
+                        int pixel = argb[x];
+                        row[i] = (byte) (pixel >> 16);
+                        row[i + 1] = (byte) (pixel >> 8);
+                        row[i + 2] = (byte) pixel;
+                        row[i + 3] = (byte) (pixel >>> 24);
+                    }
+                } else {
+                    for (int x = 0, i = 0; x < width; x++, i += 3) {
+                        int pixel = argb[x];
+                        row[i] = (byte) (pixel >> 16);
+                        row[i + 1] = (byte) (pixel >> 8);
+                        row[i + 2] = (byte) pixel;
+                    }
+                }
+                Filter rowFilter = filter == Filter.ADAPTIVE ? adaptive(row, prior, bytesPerPixel) : filter;
+                byte[] line = filter(rowFilter, row, prior, bytesPerPixel, filtered);
+                deflaterOutputStream.write(line, 0, rowLength + 1);
+                byte[] swap = prior;
+                prior = row;
+                row = swap;
+            }
+            deflaterOutputStream.finish();
+        } finally {
+            releaseDeflater(deflater);
+        }
+
+        DataOutputStream dataOutputStream = new DataOutputStream(out);
+        dataOutputStream.write(SIGNATURE);
+        ChunkBuffer header = new ChunkBuffer(13);
+        DataOutputStream headerStream = new DataOutputStream(header);
+        headerStream.writeInt(width);
+        headerStream.writeInt(height);
+        headerStream.writeByte(8);
+        headerStream.writeByte(alpha ? COLOR_TYPE_RGBA : COLOR_TYPE_RGB);
+        headerStream.writeByte(0);
+        headerStream.writeByte(0);
+        headerStream.writeByte(0);
+        writeChunk(dataOutputStream, "IHDR", header);
+        writeChunk(dataOutputStream, "IDAT", data);
+        writeChunk(dataOutputStream, "IEND", new ChunkBuffer(0));
+        dataOutputStream.flush();
+    }
+
+    /**
+     * Ends the idle deflaters; images encoded afterwards get a deflater of their own.
+     */
+    public void shutdown() {
+        shutdown = true;
+        Deflater deflater;
+        while ((deflater = idleDeflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    private Deflater acquireDeflater() {
+        Deflater deflater = idleDeflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(compressionLevel);
+            deflater.setStrategy(filter == Filter.NONE ? Deflater.DEFAULT_STRATEGY : Deflater.FILTERED);
+        }
+        return deflater;
+    }
+
+    private void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (shutdown || !idleDeflaters.offer(deflater)) {
+            deflater.end();
+            return;
+        }
+        // shut down while it was offered, after the idle ones were ended
+        if (shutdown && idleDeflaters.remove(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Pick the filter by the sum of the absolute filtered bytes, measured without writing them out.
+     */
+    private static Filter adaptive(byte[] row, byte[] prior, int bytesPerPixel) {
+        int length = row.length;
+        int none = 0;
+        int sub = 0;
+        int up = 0;
+        int average = 0;
+        int paeth = 0;
+        for (int i = 0; i < length; i++) {
+            int value = row[i];
+            int left = i >= bytesPerPixel ? row[i - bytesPerPixel] & 0xFF : 0;
+            int above = prior[i] & 0xFF;
+            int upLeft = i >= bytesPerPixel ? prior[i - bytesPerPixel] & 0xFF : 0;
+            none += Math.abs(value);
+            sub += Math.abs((byte) (value - left));
+            up += Math.abs((byte) (value - above));
+            average += Math.abs((byte) (value - ((left + above) >>> 1)));
+            paeth += Math.abs((byte) (value - paeth(left, above, upLeft)));
+        }
+        Filter best = Filter.NONE;
+        int bestSum = none;
+        if (sub < bestSum) {
+            best = Filter.SUB;
+            bestSum = sub;
+        }
+        if (up < bestSum) {
+            best = Filter.UP;
+            bestSum = up;
+        }
+        if (average < bestSum) {
+            best = Filter.AVERAGE;
+            bestSum = average;
+        }
+        if (paeth < bestSum) {
+            best = Filter.PAETH;
+        }
+        return best;
+    }
+
+    /**
+     * Filter one row into {@code line}: the filter type byte followed by the filtered bytes.
+     *
+     * @param prior the unfiltered previous row, all zeros for the first one
+     */
+    private static byte[] filter(Filter filter, byte[] row, byte[] prior, int bytesPerPixel, byte[] line) {
+        int length = row.length;
+        int head = Math.min(bytesPerPixel, length);
+        line[0] = (byte) filter.ordinal();
+        switch (filter) {
+            case SUB:
+                System.arraycopy(row, 0, line, 1, head);
+                for (int i = head; i < length; i++) {
+                    line[i + 1] = (byte) (row[i] - row[i - bytesPerPixel]);
+                }
+                break;
+            case UP:
+                for (int i = 0; i < length; i++) {
+                    line[i + 1] = (byte) (row[i] - prior[i]);
+                }
+                break;
+            case AVERAGE:
+                for (int i = 0; i < head; i++) {
+                    line[i + 1] = (byte) (row[i] - ((prior[i] & 0xFF) >>> 1));
+                }
+                for (int i = head; i < length; i++) {
+                    line[i + 1] = (byte) (row[i] - (((row[i - bytesPerPixel] & 0xFF) + (prior[i] & 0xFF)) >>> 1));
+                }
+                break;
+            case PAETH:
+                // with no left neighbour the predictor is the byte above
+                for (int i = 0; i < head; i++) {
+                    line[i + 1] = (byte) (row[i] - prior[i]);
+                }
+                for (int i = head; i < length; i++) {
+                    line[i + 1] = (byte) (row[i] - paeth(row[i - bytesPerPixel] & 0xFF, prior[i] & 0xFF, prior[i - bytesPerPixel] & 0xFF));
+                }
+                break;
+            default:
+                System.arraycopy(row, 0, line, 1, length);
+        }
+        return line;
+    }
+
+    private static int paeth(int left, int up, int upLeft) {
+        int estimate = left + up - upLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceUp = Math.abs(estimate - up);
+        int distanceUpLeft = Math.abs(estimate - upLeft);
+        if (distanceLeft <= distanceUp && distanceLeft <= distanceUpLeft) {
+            return left;
+        }
+        return distanceUp <= distanceUpLeft ? up : upLeft;
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, ChunkBuffer data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data.buffer(), 0, data.size());
+        out.writeInt(data.size());
+        out.write(typeBytes);
+        out.write(data.buffer(), 0, data.size());
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Gives the chunk data to the CRC and the output without copying it.
+     */
+    private static final class ChunkBuffer extends ByteArrayOutputStream {
+
+        private ChunkBuffer(int size) {
+            super(size);
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.digitalmind.signaturecartrige.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.digitalmind.signaturecartrige.dto.FontType;
+import org.digitalmind.signaturecartrige.dto.SignatureConfiguration;
+import org.digitalmind.signaturecartrige.dto.SignatureConfigurationRequest;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Resolved {@link SignatureConfiguration}s keyed by their normalized request, bounded by entry count and expired
+ * a while after their last use. A configuration is built once even when concurrent requests miss at the same time;
+ * hit, miss, eviction and load time counters are available through {@link #stats()}.
+ */
+public class SignatureConfigurationCache {
+
+    private final boolean enabled;
+    private final Cache<Key, SignatureConfiguration> cache;
+
+    public SignatureConfigurationCache(boolean enabled, long maxEntries, Duration expireAfterAccess) {
+        this.enabled = enabled && maxEntries > 0;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxEntries, 0))
+                .recordStats();
+        if (expireAfterAccess != null && !expireAfterAccess.isZero() && !expireAfterAccess.isNegative()) {
+            builder.expireAfterAccess(expireAfterAccess);
+        }
+        this.cache = builder.build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cached configuration of the request, or the one the loader builds from the normalized request, which
+     * then gets cached. With the cache disabled the loader is always called.
+     */
+    public SignatureConfiguration get(SignatureConfigurationRequest request, Function<SignatureConfigurationRequest, SignatureConfiguration> loader) {
+        Key key = Key.of(request);
+        if (!enabled) {
+            return loader.apply(key.request());
+        }
+        return cache.get(key, k -> loader.apply(k.request()));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * An immutable copy of a configuration request with its color names in lower case, as they are matched
+     * regardless of case. The copy is never handed out, every {@link #request()} is a new one.
+     */
+    public static final class Key {
+
+        private final SignatureConfigurationRequest request;
+        private final int hashCode;
+
+        private Key(SignatureConfigurationRequest request) {
+            this.request = request;
+            this.hashCode = request.hashCode();
+        }
+
+        public static Key of(SignatureConfigurationRequest request) {
+            return new Key(normalize(request));
+        }
+
+        public SignatureConfigurationRequest request() {
+            return normalize(request);
+        }
+
+        private static SignatureConfigurationRequest normalize(SignatureConfigurationRequest request) {
+            return SignatureConfigurationRequest.builder()
+                    .mode(request.getMode())
+                    .signatureFieldAppearance(request.getSignatureFieldAppearance())
+                    .backgroundColor(color(request.getBackgroundColor()))
+                    .transparentColor(color(request.getTransparentColor()))
+                    .foregroundColor(color(request.getForegroundColor()))
+                    .borderColor(color(request.getBorderColor()))
+                    .sessionFontType(copy(request.getSessionFontType()))
+                    .sessionColor(color(request.getSessionColor()))
+                    .sessionLabel(request.getSessionLabel())
+                    .signatureFontType(copy(request.getSignatureFontType()))
+                    .signatureColor(color(request.getSignatureColor()))
+                    .traceFontType(copy(request.getTraceFontType()))
+                    .traceColor(color(request.getTraceColor()))
+                    .dateFontType(copy(request.getDateFontType()))
+                    .dateLabel(request.getDateLabel())
+                    .dateColor(color(request.getDateColor()))
+                    .newWidth(request.getNewWidth())
+                    .newHeight(request.getNewHeight())
+                    .imageType(request.getImageType())
+                    .build();
+        }
+
+        private static String color(String color) {
+            return color != null ? color.toLowerCase(Locale.ROOT) : null;
+        }
+
+        private static FontType copy(FontType fontType) {
+            return fontType != null ? new FontType(fontType) : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hashCode == key.hashCode && request.equals(key.request);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.digitalmind.signaturecartrige.image;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.stream.IntStream;
+
+/**
+ * Clears the alpha of the pixels of one color, directly on the {@link DataBufferInt} of a
+ * {@link BufferedImage#TYPE_INT_ARGB} image.
+ * <p>
+ * The result is the one the former {@code RGBImageFilter}/{@code Toolkit} round trip produced: matching pixels
+ * become {@code 0x00000000}, other translucent pixels get the color rounding of a source-over draw onto an empty
+ * image, and opaque pixels are kept. Images with at least {@link #PARALLEL_THRESHOLD} pixels are processed in
+ * row chunks on the common fork-join pool.
+ */
+public final class TransparencyFilter {
+
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int CHUNK_ROWS = 64;
+
+    private static final byte[][] MUL8 = new byte[256][256];
+    private static final byte[][] DIV8 = new byte[256][256];
+
+    static {
+        // the 8 bit alpha tables of the Java2D blit loops
+        for (int i = 1; i < 256; i++) {
+            long inc = (i << 16) + (i << 8) + i;
+            long val = inc + (1 << 23);
+            for (int j = 1; j < 256; j++) {
+                MUL8[i][j] = (byte) (val >> 24);
+                val += inc;
+            }
+        }
+        for (int i = 1; i < 256; i++) {
+            long inc = ((0xFFL << 24) + i / 2) / i;
+            long val = 1 << 23;
+            for (int j = 0; j < i; j++) {
+                DIV8[i][j] = (byte) (val >> 24);
+                val += inc;
+            }
+            for (int j = i; j < 256; j++) {
+                DIV8[i][j] = (byte) 0xFF;
+            }
+        }
+    }
+
+    private TransparencyFilter() {
+    }
+
+    /**
+     * Apply the filter to the image, in place when it is a plain {@code TYPE_INT_ARGB} image, otherwise to an
+     * ARGB copy.
+     *
+     * @param markerRgb the color to clear, compared with the alpha bits forced to opaque
+     * @return the filtered image
+     */
+    public static BufferedImage apply(BufferedImage image, int markerRgb) {
+        BufferedImage target = image;
+        if (!isIntArgb(image)) {
+            target = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics2D = target.createGraphics();
+            graphics2D.drawImage(image, 0, 0, null);
+            graphics2D.dispose();
+        }
+        int width = target.getWidth();
+        int height = target.getHeight();
+        int scanlineStride = ((SinglePixelPackedSampleModel) target.getSampleModel()).getScanlineStride();
+        int[] pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+        int marker = markerRgb | 0xFF000000;
+        if ((long) width * height >= PARALLEL_THRESHOLD) {
+            int chunks = (height + CHUNK_ROWS - 1) / CHUNK_ROWS;
+            IntStream.range(0, chunks).parallel().forEach(chunk ->
+                    filter(pixels, scanlineStride, width, chunk * CHUNK_ROWS, Math.min(height, (chunk + 1) * CHUNK_ROWS), marker)
+            );
+        } else {
+            filter(pixels, scanlineStride, width, 0, height, marker);
+        }
+        return target;
+    }
+
+    /**
+     * Apply the filter to a copy of the image, leaving the image untouched.
+     */
+    public static BufferedImage applyToCopy(BufferedImage image, int markerRgb) {
+        if (!isIntArgb(image)) {
+            return apply(image, markerRgb);
+        }
+        ColorModel colorModel = image.getColorModel();
+        BufferedImage copy = new BufferedImage(colorModel, image.copyData(null), colorModel.isAlphaPremultiplied(), null);
+        return apply(copy, markerRgb);
+    }
+
+    private static void filter(int[] pixels, int scanlineStride, int width, int fromRow, int toRow, int marker) {
+        for (int y = fromRow; y < toRow; y++) {
+            int offset = y * scanlineStride;
+            int end = offset + width;
+            for (int i = offset; i < end; i++) {
+                int argb = pixels[i];
+                int alpha = argb >>> 24;
+                if (alpha == 0xFF) {
+                    if (argb == marker) {
+                        pixels[i] = 0;
+                    }
+                } else if (alpha == 0 || (argb | 0xFF000000) == marker) {
+                    pixels[i] = 0;
+                } else {
+                    pixels[i] = (argb & 0xFF000000)
+                            | (blend(alpha, (argb >> 16) & 0xFF) << 16)
+                            | (blend(alpha, (argb >> 8) & 0xFF) << 8)
+                            | blend(alpha, argb & 0xFF);
+                }
+            }
+        }
+    }
+
+    /**
+     * A translucent component drawn source-over onto a transparent pixel: premultiplied, then divided back.
+     */
+    private static int blend(int alpha, int component) {
+        return DIV8[alpha][MUL8[alpha][component] & 0xFF] & 0xFF;
+    }
+
+    private static boolean isIntArgb(BufferedImage image) {
+        return image.getType() == BufferedImage.TYPE_INT_ARGB
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getSampleModel() instanceof SinglePixelPackedSampleModel
+                && image.getRaster().getSampleModelTranslateX() == 0
+                && image.getRaster().getSampleModelTranslateY() == 0;
+    }
+
+}
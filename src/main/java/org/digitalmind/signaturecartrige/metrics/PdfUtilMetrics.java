@@ -0,0 +1,155 @@
+package org.digitalmind.signaturecartrige.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * The Micrometer meters of the module, all named {@code signaturecartrige.*}:
+ * <ul>
+ * <li>{@code signaturecartrige.operation}: timer per service operation, tagged with {@code operation} and
+ * {@code outcome}</li>
+ * <li>{@code signaturecartrige.phase}: timer per internal phase, tagged with {@code phase}</li>
+ * <li>{@code signaturecartrige.input.bytes}, {@code signaturecartrige.output.bytes} and
+ * {@code signaturecartrige.fields}: distribution summaries per operation</li>
+ * <li>{@code signaturecartrige.cache.*}: gets, evictions, loads and size of every cache, tagged with
+ * {@code cache}</li>
+ * </ul>
+ * Without a registry every method only runs the given call.
+ */
+public class PdfUtilMetrics {
+
+    public static final String PREFIX = "signaturecartrige";
+    public static final String OPERATION = PREFIX + ".operation";
+    public static final String PHASE = PREFIX + ".phase";
+    public static final String INPUT_BYTES = PREFIX + ".input.bytes";
+    public static final String OUTPUT_BYTES = PREFIX + ".output.bytes";
+    public static final String FIELDS = PREFIX + ".fields";
+    public static final String CACHE_GETS = PREFIX + ".cache.gets";
+    public static final String CACHE_EVICTIONS = PREFIX + ".cache.evictions";
+    public static final String CACHE_LOADS = PREFIX + ".cache.loads";
+    public static final String CACHE_SIZE = PREFIX + ".cache.size";
+
+    public static final String PHASE_PDF_OPEN = "pdf.open";
+    public static final String PHASE_PDF_FIELDS = "pdf.fields";
+    public static final String PHASE_PDF_CLOSE = "pdf.close";
+    public static final String PHASE_CARTRIDGE_LAYOUT = "cartridge.layout";
+    public static final String PHASE_CARTRIDGE_RASTER = "cartridge.raster";
+    public static final String PHASE_CARTRIDGE_ENCODE = "cartridge.encode";
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private final MeterRegistry registry;
+
+    /**
+     * @param registry {@code null} disables recording
+     */
+    public PdfUtilMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public boolean isEnabled() {
+        return registry != null;
+    }
+
+    public <T, E extends Exception> T operation(String operation, Call<T, E> call) throws E {
+        if (registry == null) {
+            return call.call();
+        }
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.call();
+            outcome = "success";
+            return result;
+        } finally {
+            registry.timer(OPERATION, "operation", operation, "outcome", outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public <T, E extends Exception> T phase(String phase, Call<T, E> call) throws E {
+        if (registry == null) {
+            return call.call();
+        }
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            phase(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void phase(String phase, long nanos) {
+        if (registry != null) {
+            registry.timer(PHASE, "phase", phase).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void inputBytes(String operation, long bytes) {
+        summary(INPUT_BYTES, "bytes", operation, bytes);
+    }
+
+    public void outputBytes(String operation, long bytes) {
+        summary(OUTPUT_BYTES, "bytes", operation, bytes);
+    }
+
+    public void fields(String operation, int fieldCount) {
+        summary(FIELDS, null, operation, fieldCount);
+    }
+
+    /**
+     * Publish the counters of a cache, read from its stats whenever the registry is scraped.
+     */
+    public <C> void bindCache(String name, C cache, Function<C, CacheStats> stats, ToDoubleFunction<C> size) {
+        if (registry == null || cache == null) {
+            return;
+        }
+        FunctionCounter.builder(CACHE_GETS, cache, c -> stats.apply(c).hitCount())
+                .tags("cache", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder(CACHE_GETS, cache, c -> stats.apply(c).missCount())
+                .tags("cache", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder(CACHE_EVICTIONS, cache, c -> stats.apply(c).evictionCount())
+                .tags("cache", name)
+                .register(registry);
+        FunctionTimer.builder(CACHE_LOADS, cache, c -> stats.apply(c).loadCount(), c -> stats.apply(c).totalLoadTime(), TimeUnit.NANOSECONDS)
+                .tags("cache", name)
+                .register(registry);
+        Gauge.builder(CACHE_SIZE, cache, size)
+                .tags("cache", name)
+                .register(registry);
+    }
+
+    /**
+     * A gauge or a counter that is read from the given object whenever the registry is scraped.
+     */
+    public <T> void gauge(String name, T object, ToDoubleFunction<T> value, String... tags) {
+        if (registry != null) {
+            Gauge.builder(PREFIX + "." + name, object, value).tags(tags).register(registry);
+        }
+    }
+
+    public <T> void counter(String name, T object, ToDoubleFunction<T> value, String... tags) {
+        if (registry != null) {
+            FunctionCounter.builder(PREFIX + "." + name, object, value).tags(tags).register(registry);
+        }
+    }
+
+    private void summary(String name, String unit, String operation, double amount) {
+        if (registry != null) {
+            DistributionSummary.builder(name)
+                    .baseUnit(unit)
+                    .tags("operation", operation)
+                    .register(registry)
+                    .record(amount);
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+import com.lowagie.text.pdf.AcroFields;
+
+import java.util.*;
+
+/**
+ * The field names of one document, indexed once so that a whole list of requested names and patterns can be
+ * resolved in a single pass:
+ * <ul>
+ * <li>plain names are exact (case-sensitive) hash lookups, or binary searches over the case-folded names kept sorted
+ * when they are resolved with {@link #resolveEachIgnoringCase},</li>
+ * <li>{@code abc*} patterns are a range scan over the case-folded names kept sorted, i.e. a flattened prefix trie,</li>
+ * <li>every other wildcard pattern is tested by {@link FieldPattern#matches(String)} during one shared walk over the names.</li>
+ * </ul>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class FieldNameIndex {
+
+    private final Set<String> fieldNames;
+    private final String[] sortedFoldedNames;
+    private final String[] sortedNames;
+
+    private FieldNameIndex(Collection<String> fieldNames) {
+        this.fieldNames = Collections.unmodifiableSet(new LinkedHashSet<>(fieldNames));
+        String[] names = this.fieldNames.toArray(new String[0]);
+        String[] foldedNames = new String[names.length];
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < names.length; i++) {
+            foldedNames[i] = FieldPattern.fold(names[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> foldedNames[i]));
+        this.sortedFoldedNames = new String[names.length];
+        this.sortedNames = new String[names.length];
+        for (int i = 0; i < order.length; i++) {
+            this.sortedFoldedNames[i] = foldedNames[order[i]];
+            this.sortedNames[i] = names[order[i]];
+        }
+    }
+
+    public static FieldNameIndex of(Collection<String> fieldNames) {
+        return new FieldNameIndex(fieldNames != null ? fieldNames : Collections.emptySet());
+    }
+
+    public static FieldNameIndex of(AcroFields acroFields) {
+        return of(acroFields.getAllFields().keySet());
+    }
+
+    public Set<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    public int size() {
+        return fieldNames.size();
+    }
+
+    public boolean isEmpty() {
+        return fieldNames.isEmpty();
+    }
+
+    public boolean contains(String fieldName) {
+        return fieldNames.contains(fieldName);
+    }
+
+    /**
+     * The union of the field names matched by any of the given names or patterns.
+     */
+    public Set<String> resolve(Collection<String> fieldNameOrPatternCollection) {
+        Set<String> result = new LinkedHashSet<>();
+        if (fieldNameOrPatternCollection == null || fieldNameOrPatternCollection.isEmpty() || fieldNames.isEmpty()) {
+            return result;
+        }
+        List<FieldPattern> fieldPatternList = new ArrayList<>(fieldNameOrPatternCollection.size());
+        for (String fieldNameOrPattern : fieldNameOrPatternCollection) {
+            if (fieldNameOrPattern != null && !fieldNameOrPattern.isEmpty()) {
+                fieldPatternList.add(FieldPattern.compile(fieldNameOrPattern));
+            }
+        }
+        for (Set<String> matches : resolveEach(fieldPatternList).values()) {
+            result.addAll(matches);
+        }
+        return result;
+    }
+
+    /**
+     * The field names matched by each pattern, in pattern order. Patterns without a match map to an empty set.
+     */
+    public Map<FieldPattern, Set<String>> resolveEach(Collection<FieldPattern> fieldPatternCollection) {
+        return resolveEach(fieldPatternCollection, false);
+    }
+
+    /**
+     * {@link #resolveEach} where plain names also match the field names differing only in case, as wildcard
+     * patterns do; the signature fields of a document are checked this way.
+     */
+    public Map<FieldPattern, Set<String>> resolveEachIgnoringCase(Collection<FieldPattern> fieldPatternCollection) {
+        return resolveEach(fieldPatternCollection, true);
+    }
+
+    private Map<FieldPattern, Set<String>> resolveEach(Collection<FieldPattern> fieldPatternCollection, boolean ignoreCase) {
+        Map<FieldPattern, Set<String>> result = new LinkedHashMap<>();
+        List<FieldPattern> scanPatternList = new ArrayList<>();
+        for (FieldPattern fieldPattern : fieldPatternCollection) {
+            if (result.containsKey(fieldPattern)) {
+                continue;
+            }
+            Set<String> matches = new LinkedHashSet<>();
+            result.put(fieldPattern, matches);
+            if (!fieldPattern.isWildcard()) {
+                if (ignoreCase) {
+                    collectEqual(FieldPattern.fold(fieldPattern.getPattern()), matches);
+                } else if (fieldNames.contains(fieldPattern.getPattern())) {
+                    matches.add(fieldPattern.getPattern());
+                }
+            } else if (fieldPattern.isPrefix()) {
+                collectPrefix(fieldPattern.getFoldedPrefix(), matches);
+            } else {
+                scanPatternList.add(fieldPattern);
+            }
+        }
+        if (!scanPatternList.isEmpty()) {
+            for (String fieldName : fieldNames) {
+                for (FieldPattern fieldPattern : scanPatternList) {
+                    if (fieldPattern.matches(fieldName)) {
+                        result.get(fieldPattern).add(fieldName);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void collectEqual(String foldedName, Set<String> matches) {
+        for (int i = lowerBound(foldedName); i < sortedFoldedNames.length && sortedFoldedNames[i].equals(foldedName); i++) {
+            matches.add(sortedNames[i]);
+        }
+    }
+
+    private void collectPrefix(String foldedPrefix, Set<String> matches) {
+        for (int i = lowerBound(foldedPrefix); i < sortedFoldedNames.length && sortedFoldedNames[i].startsWith(foldedPrefix); i++) {
+            matches.add(sortedNames[i]);
+        }
+    }
+
+    private int lowerBound(String folded) {
+        int low = 0;
+        int high = sortedFoldedNames.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedFoldedNames[mid].compareTo(folded) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+}
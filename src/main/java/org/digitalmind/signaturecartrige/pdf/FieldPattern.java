@@ -0,0 +1,150 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+/**
+ * A field name or wildcard pattern compiled once and matched without allocation.
+ * <p>
+ * {@code *} matches any sequence of characters (including none), {@code ?} matches exactly one character.
+ * Matching is case-insensitive; the pattern is case-folded when compiled and the field name one character
+ * at a time while matching. The matcher is the iterative two-pointer algorithm that backtracks only to the
+ * last {@code *}, so it runs in O(pattern x name) in the worst case instead of the exponential recursion.
+ */
+public final class FieldPattern {
+
+    public static final char ANY_SEQUENCE = '*';
+    public static final char ANY_CHARACTER = '?';
+
+    private final String pattern;
+    private final char[] folded;
+    private final boolean wildcard;
+    private final int minLength;
+    private final int prefixLength;
+    private final boolean prefix;
+
+    private FieldPattern(String pattern) {
+        this.pattern = pattern;
+        this.folded = new char[pattern.length()];
+        boolean wildcard = false;
+        int minLength = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == ANY_SEQUENCE) {
+                wildcard = true;
+            } else {
+                if (c == ANY_CHARACTER) {
+                    wildcard = true;
+                }
+                minLength++;
+            }
+            this.folded[i] = fold(c);
+        }
+        this.wildcard = wildcard;
+        this.minLength = minLength;
+
+        int prefixLength = 0;
+        while (prefixLength < folded.length && folded[prefixLength] != ANY_SEQUENCE && folded[prefixLength] != ANY_CHARACTER) {
+            prefixLength++;
+        }
+        int end = prefixLength;
+        while (end < folded.length && folded[end] == ANY_SEQUENCE) {
+            end++;
+        }
+        this.prefixLength = prefixLength;
+        this.prefix = wildcard && end == folded.length && end > prefixLength;
+    }
+
+    public static FieldPattern compile(String fieldNameOrPattern) {
+        if (fieldNameOrPattern == null) {
+            throw new IllegalArgumentException("Field name or pattern must not be null");
+        }
+        return new FieldPattern(fieldNameOrPattern);
+    }
+
+    public static boolean isWildcard(String fieldNameOrPattern) {
+        return fieldNameOrPattern != null
+                && (fieldNameOrPattern.indexOf(ANY_SEQUENCE) >= 0 || fieldNameOrPattern.indexOf(ANY_CHARACTER) >= 0);
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public boolean isWildcard() {
+        return wildcard;
+    }
+
+    /**
+     * True for {@code abc*} shaped patterns, whose only wildcards are trailing {@code *}s.
+     */
+    public boolean isPrefix() {
+        return prefix;
+    }
+
+    /**
+     * The case-folded literal text in front of the first wildcard.
+     */
+    public String getFoldedPrefix() {
+        return new String(folded, 0, prefixLength);
+    }
+
+    public static String fold(String fieldName) {
+        char[] chars = new char[fieldName.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(fieldName.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    public boolean matches(String fieldName) {
+        if (fieldName == null) {
+            return false;
+        }
+        int nameLength = fieldName.length();
+        if (nameLength < minLength || (!wildcard && nameLength != minLength)) {
+            return false;
+        }
+        int p = 0;
+        int n = 0;
+        int star = -1;
+        int mark = 0;
+        while (n < nameLength) {
+            if (p < folded.length && folded[p] == ANY_SEQUENCE) {
+                star = p++;
+                mark = n;
+            } else if (p < folded.length && (folded[p] == ANY_CHARACTER || folded[p] == fold(fieldName.charAt(n)))) {
+                p++;
+                n++;
+            } else if (star >= 0) {
+                p = star + 1;
+                n = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while (p < folded.length && folded[p] == ANY_SEQUENCE) {
+            p++;
+        }
+        return p == folded.length;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(c);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return pattern.equals(((FieldPattern) o).pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return pattern.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+}
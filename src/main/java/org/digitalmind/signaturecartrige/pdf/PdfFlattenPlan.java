@@ -0,0 +1,155 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+import com.lowagie.text.pdf.*;
+import org.digitalmind.signaturecartrige.dto.FlattenContentRequest;
+import org.digitalmind.signaturecartrige.dto.FlattenStrategy;
+
+import java.util.*;
+
+/**
+ * How a selection of fields is flattened.
+ * <p>
+ * OpenPDF removes every field it flattens one at a time from its parent, scanning the form's field array once per
+ * field, so flattening all but a few fields of a large form is far slower than flattening all of them. The plan
+ * is {@link FlattenStrategy#FULL} when the selection covers the form, and {@link FlattenStrategy#NONE} when it is
+ * empty. The caller decides what an empty selection means: a request selecting nothing, or nothing the form has,
+ * flattens every field as OpenPDF does, but a selection emptied by excluding fields of the form must not flatten
+ * the fields it excludes. Otherwise the selection and the rest of the form are weighed by their widgets, a
+ * radio group counting once per button: a selection holding most of the widgets is flattened as an
+ * {@link FlattenStrategy#EXCLUSION}, the field array holding only the field trees that keep a field while OpenPDF
+ * removes the others, and a smaller one as an {@link FlattenStrategy#INCLUSION}, left to OpenPDF as is.
+ */
+public final class PdfFlattenPlan {
+
+    private final FlattenStrategy strategy;
+    private final Set<String> flattenFieldNames;
+    private final int flattenedFieldCount;
+    private final int keptFieldCount;
+
+    private PdfFlattenPlan(FlattenStrategy strategy, Set<String> flattenFieldNames, int flattenedFieldCount, int keptFieldCount) {
+        this.strategy = strategy;
+        this.flattenFieldNames = flattenFieldNames;
+        this.flattenedFieldCount = flattenedFieldCount;
+        this.keptFieldCount = keptFieldCount;
+    }
+
+    /**
+     * Whether the request selects no field at all, which flattens every field of the form. This is the only
+     * request flattened in parallel page ranges, so both paths share this definition.
+     */
+    public static boolean isFlattenAll(FlattenContentRequest request) {
+        return (request.getFlattenFields() == null || request.getFlattenFields().isEmpty())
+                && (request.getNonFlattenFields() == null || request.getNonFlattenFields().isEmpty())
+                && request.getFlattenSignatureFields() == null;
+    }
+
+    public static PdfFlattenPlan full(PdfTemplate template) {
+        return new PdfFlattenPlan(FlattenStrategy.FULL, Collections.emptySet(), template.getFieldNames().size(), 0);
+    }
+
+    public static PdfFlattenPlan none(PdfTemplate template) {
+        return new PdfFlattenPlan(FlattenStrategy.NONE, Collections.emptySet(), 0, template.getFieldNames().size());
+    }
+
+    public static PdfFlattenPlan of(PdfTemplate template, Collection<String> fieldNames) {
+        Set<String> flattenFieldNames = new LinkedHashSet<>();
+        long flattenedWidgets = 0;
+        for (String fieldName : fieldNames) {
+            if (template.getFieldNameIndex().contains(fieldName) && flattenFieldNames.add(fieldName)) {
+                flattenedWidgets += template.getWidgetCount(fieldName);
+            }
+        }
+        int fieldCount = template.getFieldNames().size();
+        if (flattenFieldNames.isEmpty()) {
+            return none(template);
+        }
+        if (flattenFieldNames.size() == fieldCount) {
+            return full(template);
+        }
+        long keptWidgets = 0;
+        for (String fieldName : template.getFieldNames()) {
+            if (!flattenFieldNames.contains(fieldName)) {
+                keptWidgets += template.getWidgetCount(fieldName);
+            }
+        }
+        FlattenStrategy strategy = flattenedWidgets > keptWidgets ? FlattenStrategy.EXCLUSION : FlattenStrategy.INCLUSION;
+        return new PdfFlattenPlan(strategy, Collections.unmodifiableSet(flattenFieldNames), flattenFieldNames.size(), fieldCount - flattenFieldNames.size());
+    }
+
+    public FlattenStrategy getStrategy() {
+        return strategy;
+    }
+
+    public Set<String> getFlattenFieldNames() {
+        return flattenFieldNames;
+    }
+
+    public int getFlattenedFieldCount() {
+        return flattenedFieldCount;
+    }
+
+    public int getKeptFieldCount() {
+        return keptFieldCount;
+    }
+
+    /**
+     * Registers the plan on the stamper; flattening itself is performed when the stamper is closed.
+     */
+    public void apply(PdfStamper stamper) {
+        if (strategy == FlattenStrategy.NONE) {
+            return;
+        }
+        if (strategy != FlattenStrategy.FULL) {
+            for (String fieldName : flattenFieldNames) {
+                stamper.partialFormFlattening(fieldName);
+            }
+        }
+        if (strategy == FlattenStrategy.EXCLUSION) {
+            keepFieldTrees(stamper.getReader(), stamper.getAcroFields());
+        }
+        stamper.setFormFlattening(true);
+    }
+
+    /**
+     * Leaves in the form's field array only the field trees that hold a kept field, and any field added to the
+     * document by the stamper, which is what the array holds once OpenPDF has removed the flattened fields.
+     */
+    private void keepFieldTrees(PdfReader reader, AcroFields acroFields) {
+        PdfDictionary acroForm = reader.getCatalog().getAsDict(PdfName.ACROFORM);
+        PdfArray fields = acroForm != null ? acroForm.getAsArray(PdfName.FIELDS) : null;
+        if (fields == null) {
+            return;
+        }
+        Set<Integer> flattenedRoots = new HashSet<>();
+        Set<Integer> keptRoots = new HashSet<>();
+        for (Map.Entry<String, AcroFields.Item> entry : acroFields.getAllFields().entrySet()) {
+            Set<Integer> roots = flattenFieldNames.contains(entry.getKey()) ? flattenedRoots : keptRoots;
+            AcroFields.Item item = entry.getValue();
+            for (int i = 0; i < item.size(); i++) {
+                roots.add(rootNumber(item.getWidgetRef(i), item.getWidget(i)));
+            }
+        }
+        flattenedRoots.removeAll(keptRoots);
+        PdfArray keptFields = new PdfArray();
+        for (PdfObject field : fields.getElements()) {
+            if (!(field instanceof PRIndirectReference) || !flattenedRoots.contains(((PRIndirectReference) field).getNumber())) {
+                keptFields.add(field);
+            }
+        }
+        acroForm.put(PdfName.FIELDS, keptFields);
+    }
+
+    private static int rootNumber(PdfIndirectReference reference, PdfDictionary dictionary) {
+        PdfIndirectReference parent;
+        while ((parent = dictionary.getAsIndirectObject(PdfName.PARENT)) != null) {
+            PdfObject parentDictionary = PdfReader.getPdfObject(parent);
+            if (!(parentDictionary instanceof PdfDictionary)) {
+                break;
+            }
+            reference = parent;
+            dictionary = (PdfDictionary) parentDictionary;
+        }
+        return reference != null ? reference.getNumber() : -1;
+    }
+
+}
@@ -0,0 +1,289 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flattens every field of a document on several threads. Experimental: the merge is serial and the gain over the
+ * stamper has not been measured on several cores.
+ * <p>
+ * The pages are split into contiguous ranges of about the same number of annotations. Each range is read by its
+ * own reader, reduced to its pages with {@link PdfReader#selectPages(List)}, which also drops the fields of the
+ * other pages, and flattened by its own stamper; the flattened ranges are then copied page by page into the
+ * output, with resources shared between ranges written once.
+ * <p>
+ * The copy keeps the pages, the document information and the XMP metadata. Anything pointing at a page would
+ * point at a copy of it outside the page tree, so documents with bookmarks or with annotations holding a
+ * destination are not planned, nor are documents with any other catalog entry, encrypted documents and XFA forms;
+ * they go through the stamper instead.
+ */
+public class PdfParallelFlattener {
+
+    private static final Set<PdfName> SUPPORTED_CATALOG_KEYS = new HashSet<>(Arrays.asList(
+            PdfName.TYPE, PdfName.PAGES, PdfName.ACROFORM, PdfName.METADATA
+    ));
+
+    private final int parallelism;
+    private final int minPagesPerRange;
+    private final ExecutorService executor;
+
+    public PdfParallelFlattener(int parallelism, int minPagesPerRange) {
+        this.parallelism = Math.max(1, parallelism);
+        this.minPagesPerRange = Math.max(1, minPagesPerRange);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "signaturecartrige-flatten-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * The page ranges the document is flattened in.
+     *
+     * @return {@code null} when the document is not flattened in parallel: it is too small for more than one
+     * range, or holds content the page copy would lose
+     */
+    public Plan plan(PdfSource source) throws IOException {
+        try (PdfReader reader = source.openPartialReader()) {
+            return plan(source, reader);
+        }
+    }
+
+    /**
+     * {@link #plan(PdfSource)} on a reader of the source that is already open, e.g. the one the stamper falls back
+     * to; the reader is left open.
+     */
+    public Plan plan(PdfSource source, PdfReader reader) {
+        int pageCount = reader.getNumberOfPages();
+        int rangeCount = Math.min(parallelism, pageCount / minPagesPerRange);
+        if (rangeCount < 2 || !isSupported(reader)) {
+            return null;
+        }
+        long[] weights = new long[pageCount];
+        long totalWeight = 0;
+        for (int page = 1; page <= pageCount; page++) {
+            PdfArray annotations = reader.getPageN(page).getAsArray(PdfName.ANNOTS);
+            if (annotations != null && hasDestination(annotations)) {
+                return null;
+            }
+            weights[page - 1] = 1 + (annotations != null ? annotations.size() : 0);
+            totalWeight += weights[page - 1];
+            reader.releasePage(page);
+        }
+        return new Plan(source, pageCount, split(weights, totalWeight, rangeCount));
+    }
+
+    /**
+     * @return the number of fields flattened
+     */
+    public int flatten(Plan plan, OutputStream outputStream) throws IOException {
+        List<Future<FlattenedRange>> parts = new ArrayList<>(plan.ranges.size());
+        try {
+            for (int[] range : plan.ranges) {
+                parts.add(executor.submit(() -> flattenRange(plan.source, range)));
+            }
+            return merge(plan, parts, outputStream);
+        } finally {
+            for (Future<FlattenedRange> part : parts) {
+                part.cancel(true);
+            }
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static boolean isSupported(PdfReader reader) {
+        if (reader.isEncrypted() || !SUPPORTED_CATALOG_KEYS.containsAll(reader.getCatalog().getKeys())) {
+            return false;
+        }
+        PdfDictionary acroForm = reader.getCatalog().getAsDict(PdfName.ACROFORM);
+        return acroForm == null || acroForm.get(PdfName.XFA) == null;
+    }
+
+    /**
+     * Whether an annotation links to a page, which the merge would not keep: a link destination or a go-to action.
+     */
+    private static boolean hasDestination(PdfArray annotations) {
+        for (int i = 0; i < annotations.size(); i++) {
+            PdfDictionary annotation = annotations.getAsDict(i);
+            if (annotation == null) {
+                continue;
+            }
+            if (annotation.get(PdfName.DEST) != null) {
+                return true;
+            }
+            PdfDictionary action = annotation.getAsDict(PdfName.A);
+            if (action != null && PdfName.GOTO.equals(action.getAsName(PdfName.S))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Contiguous ranges, as first and last page, closing a range once it reaches its share of the weight.
+     */
+    private static List<int[]> split(long[] weights, long totalWeight, int rangeCount) {
+        List<int[]> ranges = new ArrayList<>(rangeCount);
+        int first = 1;
+        long weight = 0;
+        for (int page = 1; page <= weights.length; page++) {
+            weight += weights[page - 1];
+            int remainingRanges = rangeCount - ranges.size() - 1;
+            boolean full = weight * rangeCount >= totalWeight * (ranges.size() + 1);
+            if (page == weights.length || (remainingRanges > 0 && full && weights.length - page >= remainingRanges)) {
+                ranges.add(new int[]{first, page});
+                first = page + 1;
+            }
+        }
+        return ranges;
+    }
+
+    private static FlattenedRange flattenRange(PdfSource source, int[] range) throws IOException, DocumentException {
+        PdfReader reader = source.openPartialReader();
+        try {
+            List<Integer> pages = new ArrayList<>(range[1] - range[0] + 1);
+            for (int page = range[0]; page <= range[1]; page++) {
+                pages.add(page);
+            }
+            // selecting pages also removes the fields of the other pages one page at a time, which is quadratic;
+            // fields are found through the annotations of the remaining pages anyway, once the form has fields
+            PdfDictionary acroForm = reader.getCatalog().getAsDict(PdfName.ACROFORM);
+            PdfObject fields = acroForm != null ? acroForm.get(PdfName.FIELDS) : null;
+            if (fields != null) {
+                acroForm.put(PdfName.FIELDS, new PdfArray());
+            }
+            reader.selectPages(pages);
+            if (fields != null) {
+                acroForm.put(PdfName.FIELDS, fields);
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            PdfStamper stamper = new PdfStamper(reader, outputStream);
+            Set<String> fieldNames = new HashSet<>(stamper.getAcroFields().getAllFields().keySet());
+            stamper.setFormFlattening(true);
+            stamper.setFreeTextFlattening(true);
+            stamper.close();
+            return new FlattenedRange(outputStream.toByteArray(), fieldNames);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @return the number of distinct fields of the ranges, a field with widgets on several ranges counting once
+     */
+    private static int merge(Plan plan, List<Future<FlattenedRange>> parts, OutputStream outputStream) throws IOException {
+        Document document = new Document();
+        Set<String> fieldNames = new HashSet<>();
+        try {
+            PdfCopy copy = new PdfSmartCopy(document, outputStream);
+            document.open();
+            for (Future<FlattenedRange> part : parts) {
+                FlattenedRange flattenedRange = get(part);
+                fieldNames.addAll(flattenedRange.fieldNames);
+                PdfReader reader = new PdfReader(flattenedRange.content);
+                try {
+                    for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                        copy.addPage(copy.getImportedPage(reader, page));
+                    }
+                    copy.freeReader(reader);
+                } finally {
+                    reader.close();
+                }
+            }
+            copyDocumentLevel(plan.source, copy);
+            return fieldNames.size();
+        } catch (DocumentException e) {
+            throw new IOException("Unable to merge the flattened pages", e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    private static void copyDocumentLevel(PdfSource source, PdfCopy copy) throws IOException {
+        PdfReader reader = source.openPartialReader();
+        try {
+            for (Map.Entry<String, String> entry : reader.getInfo().entrySet()) {
+                copy.getInfo().put(new PdfName(entry.getKey()), new PdfString(entry.getValue(), PdfObject.TEXT_UNICODE));
+            }
+            byte[] metadata = reader.getMetadata();
+            if (metadata != null) {
+                copy.setXmpMetadata(metadata);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static FlattenedRange get(Future<FlattenedRange> part) throws IOException {
+        try {
+            return part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while flattening");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Unable to flatten the page range", cause);
+        }
+    }
+
+    private static class FlattenedRange {
+        private final byte[] content;
+        private final Set<String> fieldNames;
+
+        private FlattenedRange(byte[] content, Set<String> fieldNames) {
+            this.content = content;
+            this.fieldNames = fieldNames;
+        }
+    }
+
+    public static class Plan {
+        private final PdfSource source;
+        private final int pageCount;
+        private final List<int[]> ranges;
+
+        private Plan(PdfSource source, int pageCount, List<int[]> ranges) {
+            this.source = source;
+            this.pageCount = pageCount;
+            this.ranges = ranges;
+        }
+
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        public int getRangeCount() {
+            return ranges.size();
+        }
+    }
+
+}
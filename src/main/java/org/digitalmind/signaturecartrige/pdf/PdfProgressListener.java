@@ -0,0 +1,12 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+/**
+ * Notified as the pages of a document are processed. A listener may throw an unchecked exception to abort the
+ * operation.
+ */
+@FunctionalInterface
+public interface PdfProgressListener {
+
+    void pagesProcessed(int processed, int pageCount);
+
+}
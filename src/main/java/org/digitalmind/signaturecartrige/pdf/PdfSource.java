@@ -0,0 +1,102 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The PDF input of an operation: either bytes already on the heap, or a file.
+ * <p>
+ * A file is opened through a memory-mapped {@link RandomAccessFileOrArray} with OpenPDF's partial reading, so
+ * only the cross-reference table and the objects an operation actually touches are materialized on the Java heap,
+ * and its digest is computed by streaming the file rather than loading it.
+ */
+public final class PdfSource {
+
+    private final byte[] content;
+    private final Path path;
+    private final long length;
+    private volatile String digest;
+
+    private PdfSource(byte[] content, Path path, long length) {
+        this.content = content;
+        this.path = path;
+        this.length = length;
+    }
+
+    public static PdfSource of(byte[] content) {
+        return new PdfSource(content, null, content.length);
+    }
+
+    public static PdfSource of(Path path) throws IOException {
+        return new PdfSource(null, path, Files.size(path));
+    }
+
+    /**
+     * The path when one is given, otherwise the whole stream read into memory.
+     */
+    public static PdfSource of(InputStream inputStream, Path path) throws IOException {
+        if (path != null) {
+            return of(path);
+        }
+        return of(IOUtils.toByteArray(inputStream));
+    }
+
+    public boolean isFile() {
+        return path != null;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public PdfReader openReader() throws IOException {
+        if (path != null) {
+            return new PdfReader(new RandomAccessFileOrArray(path.toString(), false, false), null);
+        }
+        return new PdfReader(content);
+    }
+
+    /**
+     * A reader with partial reading also for content on the heap, for readers that only touch some pages.
+     */
+    public PdfReader openPartialReader() throws IOException {
+        if (path != null) {
+            return openReader();
+        }
+        return new PdfReader(new RandomAccessFileOrArray(content), null);
+    }
+
+    public InputStream openStream() throws IOException {
+        return path != null ? Files.newInputStream(path) : new ByteArrayInputStream(content);
+    }
+
+    /**
+     * The SHA-256 of the content, computed once.
+     */
+    public String digest() throws IOException {
+        String result = digest;
+        if (result == null) {
+            if (path != null) {
+                try (InputStream inputStream = Files.newInputStream(path)) {
+                    result = PdfTemplate.digest(inputStream);
+                }
+            } else {
+                result = PdfTemplate.digest(content);
+            }
+            digest = result;
+        }
+        return result;
+    }
+
+}
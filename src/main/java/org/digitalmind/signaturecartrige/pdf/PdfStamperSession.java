@@ -0,0 +1,178 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+import com.lowagie.text.pdf.AcroFields;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfStamper;
+import org.digitalmind.signaturecartrige.exception.PdfUtilRuntimeException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * One reader/stamper pair that any number of operations are applied to before the document is written once.
+ * <p>
+ * Flattening is only performed by OpenPDF when the stamper is closed, and a full flatten request would be
+ * silently narrowed by any partial one registered on the same stamper. Operations therefore record their
+ * flattening intent here; {@link #close()} applies the union: everything when any operation asked for a full
+ * flatten, otherwise the collected field names, as planned by {@link PdfFlattenPlan}. Only the fields of the
+ * source document are flattened; signature fields added by an operation of the same session are kept, unlike a
+ * chain of separate calls where a later watermark or flatten call would see them as ordinary fields.
+ * <p>
+ * In append mode the source document is copied unchanged and only the objects modified by the session are written
+ * after it as an incremental update, which keeps existing signatures valid. OpenPDF cannot flatten in that mode, so
+ * any flattening operation is rejected up front.
+ */
+public class PdfStamperSession implements Closeable {
+
+    private final PdfReader reader;
+    private final PdfStamper stamper;
+    private final PdfTemplate template;
+    private final boolean append;
+    private boolean formFlattening;
+    private boolean flattenAll;
+    private boolean freeTextFlattening;
+    private PdfProgressListener progressListener;
+    private final Set<String> flattenFieldNames = new LinkedHashSet<>();
+    private final List<Consumer<PdfFlattenPlan>> flattenPlanListeners = new ArrayList<>();
+
+    private PdfStamperSession(PdfReader reader, PdfStamper stamper, PdfTemplate template, boolean append) {
+        this.reader = reader;
+        this.stamper = stamper;
+        this.template = template;
+        this.append = append;
+    }
+
+    public static PdfStamperSession open(PdfSource source, OutputStream outputStream, PdfTemplateCache templateCache) throws IOException {
+        return open(source, outputStream, templateCache, false);
+    }
+
+    public static PdfStamperSession open(PdfSource source, OutputStream outputStream, PdfTemplateCache templateCache, boolean append) throws IOException {
+        return open(source.openReader(), source, outputStream, templateCache, append);
+    }
+
+    /**
+     * A session on a reader of the source that is already open; the session closes it, also when opening fails.
+     */
+    public static PdfStamperSession open(PdfReader reader, PdfSource source, OutputStream outputStream, PdfTemplateCache templateCache, boolean append) throws IOException {
+        try {
+            PdfStamper stamper = new PdfStamper(reader, outputStream, '\0', append);
+            // the form is only parsed when the template of the source is not cached yet
+            PdfTemplate template = templateCache.get(source, () -> PdfTemplate.of(stamper.getAcroFields(), source.length()));
+            return new PdfStamperSession(reader, stamper, template, append);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    public PdfReader getReader() {
+        return reader;
+    }
+
+    public PdfStamper getStamper() {
+        return stamper;
+    }
+
+    /**
+     * The stamper's form, parsed on the first call; operations that only need field names use {@link #getTemplate()}.
+     */
+    public AcroFields getAcroFields() {
+        return stamper.getAcroFields();
+    }
+
+    public PdfTemplate getTemplate() {
+        return template;
+    }
+
+    public boolean isAppend() {
+        return append;
+    }
+
+    public int getPageCount() {
+        return reader.getNumberOfPages();
+    }
+
+    /**
+     * The listener is told about the pages operations go through, and that every page is done once the document
+     * is written; flattening is performed while writing, so it only reports then.
+     */
+    public void setProgressListener(PdfProgressListener progressListener) {
+        this.progressListener = progressListener;
+        pagesProcessed(0);
+    }
+
+    public void pagesProcessed(int processed) {
+        if (progressListener != null) {
+            progressListener.pagesProcessed(processed, getPageCount());
+        }
+    }
+
+    /**
+     * Flatten every form field of the source document.
+     */
+    public void flattenAll() {
+        assertNotAppend();
+        formFlattening = true;
+        flattenAll = true;
+    }
+
+    /**
+     * Flatten the given fields. An empty selection flattens nothing, unlike OpenPDF where it flattens every field;
+     * use {@link #flattenAll()} for that.
+     */
+    public void flatten(Collection<String> fieldNames) {
+        assertNotAppend();
+        if (!fieldNames.isEmpty()) {
+            formFlattening = true;
+            flattenFieldNames.addAll(fieldNames);
+        }
+    }
+
+    /**
+     * The listener is told the plan applied when the document is written, which is the union of the flattening
+     * of every operation of the session rather than the flattening of one of them.
+     */
+    public void addFlattenPlanListener(Consumer<PdfFlattenPlan> flattenPlanListener) {
+        flattenPlanListeners.add(flattenPlanListener);
+    }
+
+    public void setFreeTextFlattening(boolean freeTextFlattening) {
+        if (freeTextFlattening) {
+            assertNotAppend();
+        }
+        this.freeTextFlattening = this.freeTextFlattening || freeTextFlattening;
+    }
+
+    private void assertNotAppend() {
+        if (append) {
+            throw new PdfUtilRuntimeException("Flattening is not supported in append mode");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            PdfFlattenPlan flattenPlan = !formFlattening ? PdfFlattenPlan.none(template)
+                    : flattenAll ? PdfFlattenPlan.full(template)
+                    : PdfFlattenPlan.of(template, flattenFieldNames);
+            flattenPlan.apply(stamper);
+            for (Consumer<PdfFlattenPlan> flattenPlanListener : flattenPlanListeners) {
+                flattenPlanListener.accept(flattenPlan);
+            }
+            if (freeTextFlattening) {
+                stamper.setFreeTextFlattening(true);
+            }
+            int pageCount = getPageCount();
+            stamper.close();
+            if (progressListener != null) {
+                progressListener.pagesProcessed(pageCount, pageCount);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+}
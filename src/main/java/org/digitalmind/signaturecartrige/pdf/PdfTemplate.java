@@ -0,0 +1,142 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+import com.lowagie.text.pdf.AcroFields;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * The form facts of a parsed PDF: field names, field types, widget positions and blank signature fields.
+ * Everything is read from the {@link AcroFields} once, so a cached template answers {@code inspect} and
+ * drives field resolution for the mutating operations without walking the form again.
+ */
+public final class PdfTemplate {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long contentLength;
+    private final FieldNameIndex fieldNameIndex;
+    private final Map<String, Integer> fieldTypes;
+    private final Map<String, float[]> fieldPositions;
+    private final List<String> blankSignatureFieldNames;
+    private final long estimatedSize;
+
+    private PdfTemplate(long contentLength, FieldNameIndex fieldNameIndex, Map<String, Integer> fieldTypes, Map<String, float[]> fieldPositions, List<String> blankSignatureFieldNames) {
+        this.contentLength = contentLength;
+        this.fieldNameIndex = fieldNameIndex;
+        this.fieldTypes = fieldTypes;
+        this.fieldPositions = fieldPositions;
+        this.blankSignatureFieldNames = blankSignatureFieldNames;
+        long estimatedSize = 256;
+        for (Map.Entry<String, float[]> entry : fieldPositions.entrySet()) {
+            // name chars (held by the index, the type map and the sorted folded copy) + position array + map entries
+            estimatedSize += 3 * (40 + 2L * entry.getKey().length()) + 16 + 4L * entry.getValue().length + 3 * 48;
+        }
+        this.estimatedSize = estimatedSize;
+    }
+
+    public static PdfTemplate of(AcroFields acroFields, long contentLength) {
+        Set<String> fieldNames = acroFields.getAllFields().keySet();
+        Map<String, Integer> fieldTypes = new HashMap<>(fieldNames.size() * 2);
+        Map<String, float[]> fieldPositions = new HashMap<>(fieldNames.size() * 2);
+        for (String fieldName : fieldNames) {
+            fieldTypes.put(fieldName, acroFields.getFieldType(fieldName));
+            float[] positions = acroFields.getFieldPositions(fieldName);
+            fieldPositions.put(fieldName, positions != null ? positions : new float[0]);
+        }
+        return new PdfTemplate(
+                contentLength,
+                FieldNameIndex.of(fieldNames),
+                Collections.unmodifiableMap(fieldTypes),
+                Collections.unmodifiableMap(fieldPositions),
+                Collections.unmodifiableList(new ArrayList<>(acroFields.getFieldNamesWithBlankSignatures()))
+        );
+    }
+
+    public static String digest(byte[] content) {
+        MessageDigest messageDigest = sha256();
+        return hex(messageDigest.digest(content));
+    }
+
+    public static String digest(InputStream inputStream) throws IOException {
+        MessageDigest messageDigest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            messageDigest.update(buffer, 0, read);
+        }
+        return hex(messageDigest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[2 * i] = HEX[(hash[i] >> 4) & 0x0F];
+            chars[2 * i + 1] = HEX[hash[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public FieldNameIndex getFieldNameIndex() {
+        return fieldNameIndex;
+    }
+
+    public Set<String> getFieldNames() {
+        return fieldNameIndex.getFieldNames();
+    }
+
+    public int getFieldType(String fieldName) {
+        Integer fieldType = fieldTypes.get(fieldName);
+        return fieldType != null ? fieldType : AcroFields.FIELD_TYPE_NONE;
+    }
+
+    public Set<String> getFieldNames(int fieldType) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String fieldName : fieldNameIndex.getFieldNames()) {
+            if (getFieldType(fieldName) == fieldType) {
+                result.add(fieldName);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A copy of the widget positions of the field, as returned by {@link AcroFields#getFieldPositions(String)}.
+     */
+    public float[] getFieldPositions(String fieldName) {
+        float[] positions = fieldPositions.get(fieldName);
+        return positions != null ? Arrays.copyOf(positions, positions.length) : null;
+    }
+
+    public int getWidgetCount(String fieldName) {
+        float[] positions = fieldPositions.get(fieldName);
+        return positions != null ? positions.length / 5 : 0;
+    }
+
+    public List<String> getBlankSignatureFieldNames() {
+        return blankSignatureFieldNames;
+    }
+
+    /**
+     * Approximate retained heap of this template, used to bound the template cache by bytes.
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+}
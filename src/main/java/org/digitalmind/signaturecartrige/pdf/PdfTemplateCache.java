@@ -0,0 +1,79 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Parsed {@link PdfTemplate}s keyed by the SHA-256 of the PDF content, bounded by the estimated bytes they retain.
+ * Eviction is Caffeine's size-based policy (recency and frequency aware); hit, miss and eviction counters are
+ * available through {@link #stats()}.
+ */
+public class PdfTemplateCache {
+
+    @FunctionalInterface
+    public interface PdfTemplateLoader {
+        PdfTemplate load() throws IOException;
+    }
+
+    private final boolean enabled;
+    private final Cache<String, PdfTemplate> cache;
+
+    public PdfTemplateCache(boolean enabled, long maxBytes) {
+        this.enabled = enabled && maxBytes > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(maxBytes, 0))
+                .weigher((String digest, PdfTemplate template) -> (int) Math.min(Integer.MAX_VALUE, template.getEstimatedSize()))
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cached template of the content, or the one produced by the loader, which then gets cached.
+     * With the cache disabled the loader is always called and the content is not hashed.
+     */
+    public PdfTemplate get(PdfSource source, PdfTemplateLoader loader) throws IOException {
+        if (!enabled) {
+            return loader.load();
+        }
+        try {
+            return cache.get(source.digest(), digest -> {
+                try {
+                    return loader.load();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public PdfTemplate getIfPresent(PdfSource source) throws IOException {
+        return enabled ? cache.getIfPresent(source.digest()) : null;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public Cache<String, PdfTemplate> getNativeCache() {
+        return cache;
+    }
+
+}
@@ -0,0 +1,139 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Image;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfGState;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfStamper;
+import org.digitalmind.signaturecartrige.dto.WatermarkContentRequest;
+import org.digitalmind.signaturecartrige.dto.WatermarkPosition;
+
+import java.io.IOException;
+import java.util.function.IntConsumer;
+
+/**
+ * A watermark image stamped over every page of a document.
+ * <p>
+ * The image and its opacity are written once, as a form XObject holding the image XObject and one ExtGState;
+ * every page only references the form through a transformation that scales, rotates and places it for that page
+ * size. Only the over content of the pages is touched.
+ */
+public class PdfWatermark {
+
+    public static final float DEFAULT_OPACITY = 0.5f;
+
+    private final Image image;
+    private final WatermarkPosition position;
+    private final float opacity;
+    private final Float scale;
+    private final double rotation;
+
+    private PdfWatermark(Image image, WatermarkPosition position, float opacity, Float scale, double rotation) {
+        this.image = image;
+        this.position = position;
+        this.opacity = opacity;
+        this.scale = scale;
+        this.rotation = rotation;
+    }
+
+    public static PdfWatermark of(byte[] imageContent, WatermarkContentRequest request) throws IOException {
+        Image image;
+        try {
+            image = Image.getInstance(imageContent);
+        } catch (DocumentException e) {
+            throw new IOException("Unable to read the watermark image", e);
+        }
+        return new PdfWatermark(
+                image,
+                request.getPosition() != null ? request.getPosition() : WatermarkPosition.CENTER,
+                request.getOpacity() != null ? Math.max(0f, Math.min(1f, request.getOpacity())) : DEFAULT_OPACITY,
+                request.getScale(),
+                request.getRotation() != null ? Math.toRadians(request.getRotation()) : 0
+        );
+    }
+
+    public void apply(PdfStamperSession session) throws IOException {
+        apply(session.getReader(), session.getStamper(), session::pagesProcessed);
+    }
+
+    public void apply(PdfReader reader, PdfStamper stamper) throws IOException {
+        apply(reader, stamper, null);
+    }
+
+    private void apply(PdfReader reader, PdfStamper stamper, IntConsumer pagesProcessed) throws IOException {
+        float width = image.getWidth();
+        float height = image.getHeight();
+        com.lowagie.text.pdf.PdfTemplate form = com.lowagie.text.pdf.PdfTemplate.createTemplate(stamper.getWriter(), width, height);
+        PdfGState state = new PdfGState();
+        state.setFillOpacity(opacity);
+        form.setGState(state);
+        try {
+            form.addImage(image, width, 0, 0, height, 0, 0);
+        } catch (DocumentException e) {
+            throw new IOException("Unable to add the watermark image", e);
+        }
+
+        double cos = Math.cos(rotation);
+        double sin = Math.sin(rotation);
+        int n = reader.getNumberOfPages();
+        for (int i = 1; i <= n; i++) {
+            Rectangle page = reader.getPageSizeWithRotation(i);
+            // fitted as Image.scaleToFit does
+            float factor = scale != null
+                    ? Math.min(page.getWidth() * scale / width, page.getHeight() * scale / height)
+                    : Math.min(PageSize.A5.getWidth() / width, PageSize.A5.getHeight() / height);
+            double scaledWidth = width * factor;
+            double scaledHeight = height * factor;
+            double boundsWidth = Math.abs(cos) * scaledWidth + Math.abs(sin) * scaledHeight;
+            double boundsHeight = Math.abs(sin) * scaledWidth + Math.abs(cos) * scaledHeight;
+            double centerX = page.getLeft() + horizontal(page.getWidth(), boundsWidth);
+            double centerY = page.getBottom() + vertical(page.getHeight(), boundsHeight);
+
+            // scale the form to size, rotate it around its center and move the center into place
+            PdfContentByte over = stamper.getOverContent(i);
+            over.addTemplate(form,
+                             (float) (factor * cos), (float) (factor * sin),
+                             (float) (-factor * sin), (float) (factor * cos),
+                             (float) (centerX - (cos * scaledWidth - sin * scaledHeight) / 2),
+                             (float) (centerY - (sin * scaledWidth + cos * scaledHeight) / 2)
+            );
+            if (pagesProcessed != null) {
+                pagesProcessed.accept(i);
+            }
+        }
+    }
+
+    private double horizontal(float pageWidth, double boundsWidth) {
+        switch (position) {
+            case TOP_LEFT:
+            case LEFT:
+            case BOTTOM_LEFT:
+                return boundsWidth / 2;
+            case TOP_RIGHT:
+            case RIGHT:
+            case BOTTOM_RIGHT:
+                return pageWidth - boundsWidth / 2;
+            default:
+                return pageWidth / 2.0;
+        }
+    }
+
+    private double vertical(float pageHeight, double boundsHeight) {
+        switch (position) {
+            case TOP_LEFT:
+            case TOP:
+            case TOP_RIGHT:
+                return pageHeight - boundsHeight / 2;
+            case BOTTOM_LEFT:
+            case BOTTOM:
+            case BOTTOM_RIGHT:
+                return boundsHeight / 2;
+            default:
+                return pageHeight / 2.0;
+        }
+    }
+
+}
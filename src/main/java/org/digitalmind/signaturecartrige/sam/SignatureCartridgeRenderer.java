@@ -4,9 +4,21 @@ import org.digitalmind.signaturecartrige.exception.PdfUtilException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 public interface SignatureCartridgeRenderer {
 
     MultipartFile execute(Integer width, Integer height) throws IOException, PdfUtilException;
 
+    /**
+     * Encode the cartridge straight into the stream, which is left open.
+     */
+    void execute(Integer width, Integer height, OutputStream outputStream) throws IOException, PdfUtilException;
+
+    default void execute(Integer width, Integer height, WritableByteChannel channel) throws IOException, PdfUtilException {
+        execute(width, height, Channels.newOutputStream(channel));
+    }
+
 }
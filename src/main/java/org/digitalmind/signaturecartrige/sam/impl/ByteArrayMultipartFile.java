@@ -0,0 +1,113 @@
+package org.digitalmind.signaturecartrige.sam.impl;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A {@link MultipartFile} over a range of a byte array, read in place: streams and {@link #transferTo} read the
+ * array without copying it, only {@link #getBytes()} copies when the range is not the whole array.
+ */
+public class ByteArrayMultipartFile implements MultipartFile {
+
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final byte[] content;
+    private final int offset;
+    private final int length;
+
+    public ByteArrayMultipartFile(String name, String originalFilename, String contentType, byte[] content, int offset, int length) {
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.content = content;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return length;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return offset == 0 && length == content.length ? content : Arrays.copyOfRange(content, offset, offset + length);
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(content, offset, length);
+    }
+
+    /**
+     * A read only view of the content.
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(content, offset, length).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException, IllegalStateException {
+        transferTo(dest.toPath());
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException, IllegalStateException {
+        try (FileChannel channel = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = asByteBuffer();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * The stream a cartridge is encoded into; its buffer becomes the content of the file without a copy.
+     */
+    public static class Buffer extends ByteArrayOutputStream {
+
+        public Buffer(int size) {
+            super(size);
+        }
+
+        /**
+         * The file over the bytes written so far; the buffer must not be written to afterwards.
+         */
+        public ByteArrayMultipartFile toMultipartFile(String name, String originalFilename, String contentType) {
+            return new ByteArrayMultipartFile(name, originalFilename, contentType, buf, 0, count);
+        }
+
+    }
+
+}
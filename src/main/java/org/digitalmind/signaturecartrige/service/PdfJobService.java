@@ -0,0 +1,37 @@
+package org.digitalmind.signaturecartrige.service;
+
+import org.digitalmind.signaturecartrige.dto.PdfJobStatus;
+import org.digitalmind.signaturecartrige.dto.PdfPipelineRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface PdfJobService {
+
+    /**
+     * Queue the pipeline and return at once. An input stream is copied to the job directory before returning; an
+     * input path is read by the job and must exist until it finishes. The output stream of the request is ignored,
+     * the result is kept until it expires.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException when the queue is full
+     */
+    PdfJobStatus submit(PdfPipelineRequest request) throws IOException;
+
+    /**
+     * @return {@code null} for an unknown or expired job
+     */
+    PdfJobStatus getStatus(String id);
+
+    /**
+     * @return the written document of a succeeded job, {@code null} otherwise
+     */
+    Path getResult(String id);
+
+    /**
+     * Cancel a queued or running job, or discard a finished one with its result.
+     *
+     * @return {@code null} for an unknown or expired job
+     */
+    PdfJobStatus cancel(String id);
+
+}
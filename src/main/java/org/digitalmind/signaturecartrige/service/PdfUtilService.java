@@ -5,7 +5,10 @@ import org.digitalmind.signaturecartrige.exception.PdfUtilException;
 import org.digitalmind.signaturecartrige.sam.SignatureCartridgeRenderer;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface PdfUtilService {
 
@@ -19,6 +22,20 @@ public interface PdfUtilService {
 
     AddSignatureContentResponse addSignatureFields(AddSignatureContentRequest request) throws IOException;
 
+    PdfPipelineResponse process(PdfPipelineRequest request) throws IOException;
+
+    List<CompletableFuture<InspectContentResponse>> inspectAll(Collection<InspectContentRequest> requests);
+
+    List<CompletableFuture<ReplaceContentResponse>> replaceAll(Collection<ReplaceContentRequest> requests);
+
+    List<CompletableFuture<WatermarkContentResponse>> watermarkAll(Collection<WatermarkContentRequest> requests);
+
+    List<CompletableFuture<FlattenContentResponse>> flattenAll(Collection<FlattenContentRequest> requests);
+
+    List<CompletableFuture<AddSignatureContentResponse>> addSignatureFieldsAll(Collection<AddSignatureContentRequest> requests);
+
+    List<CompletableFuture<PdfPipelineResponse>> processAll(Collection<PdfPipelineRequest> requests);
+
     //PrivateContentResponse hasPrivateContent(PrivateContentRequest request) throws IOException;
 
     boolean match(String fieldNameOrPattern, String fieldName);
@@ -29,5 +46,7 @@ public interface PdfUtilService {
 
     SignatureCartridgeResponse createSignatureImage(SignatureCartridgeRequest signatureCartridgeRequest, Integer width, Integer height) throws PdfUtilException;
 
+    void writeSignatureImage(SignatureCartridgeRequest signatureCartridgeRequest, Integer width, Integer height, OutputStream outputStream) throws PdfUtilException;
+
     SignatureCartridgeRenderer createRenderer(SignatureCartridgeRequest signatureCartridgeRequest);
 }
@@ -0,0 +1,342 @@
+package org.digitalmind.signaturecartrige.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.ProxyOutputStream;
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
+import org.digitalmind.signaturecartrige.dto.PdfJobState;
+import org.digitalmind.signaturecartrige.dto.PdfJobStatus;
+import org.digitalmind.signaturecartrige.dto.PdfPipelineRequest;
+import org.digitalmind.signaturecartrige.exception.PdfContentTooLargeException;
+import org.digitalmind.signaturecartrige.exception.PdfUtilRuntimeException;
+import org.digitalmind.signaturecartrige.service.PdfJobService;
+import org.digitalmind.signaturecartrige.service.PdfUtilService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleConfig.ENABLED;
+
+/**
+ * Runs pipelines on a worker pool of its own, so callers only wait for the input to be copied.
+ * <p>
+ * The queue in front of the workers is bounded and a submission that does not fit is rejected rather than
+ * blocking the caller. Inputs and results live in the job directory as {@code <id>.input.pdf} and
+ * {@code <id>.pdf}; finished jobs are forgotten and their results deleted once the result TTL has passed, and
+ * files of unknown jobs, e.g. left over by a previous run, once they are that old.
+ * <p>
+ * A running job is cancelled cooperatively: the next page reported or block written fails the job.
+ */
+@Service
+@ConditionalOnProperty(name = ENABLED, havingValue = "true")
+@Slf4j
+public class PdfJobServiceImpl implements PdfJobService {
+
+    private static final String INPUT_SUFFIX = ".input.pdf";
+    private static final String RESULT_SUFFIX = ".pdf";
+    private static final String PART_SUFFIX = ".part";
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final PdfUtilService pdfUtilService;
+    private final Path directory;
+    private final long maxDocumentBytes;
+    private final Duration resultTtl;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService cleanupExecutor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public PdfJobServiceImpl(PdfUtilService pdfUtilService, SignatureCartrigeProperties properties) {
+        SignatureCartrigeProperties.Jobs jobProperties = properties.getJobs();
+        this.pdfUtilService = pdfUtilService;
+        this.directory = jobProperties.getDirectory() != null
+                ? jobProperties.getDirectory()
+                : Paths.get(System.getProperty("java.io.tmpdir"), "signaturecartrige-jobs");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new PdfUtilRuntimeException("Unable to create the job directory " + directory, e);
+        }
+        this.maxDocumentBytes = jobProperties.getMaxDocumentBytes();
+        this.resultTtl = jobProperties.getResultTtl();
+
+        int workers = Math.max(1, jobProperties.getWorkers());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, jobProperties.getQueueCapacity())), runnable -> {
+            Thread thread = new Thread(runnable, "signaturecartrige-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "signaturecartrige-job-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long cleanupInterval = Math.max(1000L, jobProperties.getCleanupInterval().toMillis());
+        this.cleanupExecutor.scheduleWithFixedDelay(this::cleanup, cleanupInterval, cleanupInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobs.values().forEach(job -> job.cancelRequested = true);
+        executor.shutdownNow();
+        cleanupExecutor.shutdownNow();
+    }
+
+    @Override
+    public PdfJobStatus submit(PdfPipelineRequest request) throws IOException {
+        Assert.notNull(request, this.getClass().getSimpleName() + ".submit: PdfPipelineRequest must not be null");
+        Assert.isTrue(request.getInputStream() != null || request.getInputPath() != null, this.getClass().getSimpleName() + ".submit: Pdf input stream or path must not be null");
+        Assert.notEmpty(request.getOperations(), this.getClass().getSimpleName() + ".submit: operations must not be empty");
+        // checked up front so a full queue does not cost the copy of the input
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("The job queue is full");
+        }
+        Job job = new Job(UUID.randomUUID().toString(), request);
+        jobs.put(job.id, job);
+        try {
+            if (request.getInputPath() != null) {
+                job.inputPath = request.getInputPath();
+            } else {
+                job.ownedInput = directory.resolve(job.id + INPUT_SUFFIX);
+                copy(request.getInputStream(), job.ownedInput);
+                job.inputPath = job.ownedInput;
+            }
+            job.task = () -> run(job);
+            executor.execute(job.task);
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(job.id);
+            deleteInput(job);
+            throw e;
+        }
+        return job.toStatus();
+    }
+
+    @Override
+    public PdfJobStatus getStatus(String id) {
+        Job job = jobs.get(id);
+        return job != null ? job.toStatus() : null;
+    }
+
+    @Override
+    public Path getResult(String id) {
+        Job job = jobs.get(id);
+        if (job == null || job.state != PdfJobState.SUCCEEDED) {
+            return null;
+        }
+        Path result = resultPath(job);
+        return Files.exists(result) ? result : null;
+    }
+
+    @Override
+    public PdfJobStatus cancel(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        synchronized (job) {
+            switch (job.state) {
+                case QUEUED:
+                    executor.remove(job.task);
+                    finish(job, PdfJobState.CANCELLED, null);
+                    deleteInput(job);
+                    break;
+                case RUNNING:
+                    // the worker marks it cancelled once it stops
+                    job.cancelRequested = true;
+                    break;
+                default:
+                    jobs.remove(id);
+                    deleteQuietly(resultPath(job));
+            }
+            return job.toStatus();
+        }
+    }
+
+    private void run(Job job) {
+        synchronized (job) {
+            if (job.state != PdfJobState.QUEUED) {
+                return;
+            }
+            job.state = PdfJobState.RUNNING;
+            job.startedAt = Instant.now();
+        }
+        Path part = directory.resolve(job.id + RESULT_SUFFIX + PART_SUFFIX);
+        try {
+            try (OutputStream outputStream = new JobOutputStream(job, new BufferedOutputStream(Files.newOutputStream(part), OUTPUT_BUFFER_SIZE))) {
+                pdfUtilService.process(PdfPipelineRequest.builder()
+                        .inputPath(job.inputPath)
+                        .outputStream(outputStream)
+                        .appendMode(job.request.getAppendMode())
+                        .operations(job.request.getOperations())
+                        .progressListener((processed, pageCount) -> {
+                            job.checkCancelled();
+                            job.pageCount = pageCount;
+                            job.pagesProcessed = processed;
+                        })
+                        .build());
+            }
+            Files.move(part, resultPath(job), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finish(job, PdfJobState.SUCCEEDED, null);
+        } catch (Throwable e) {
+            deleteQuietly(part);
+            if (job.cancelRequested) {
+                finish(job, PdfJobState.CANCELLED, null);
+            } else {
+                log.warn("Job {} failed", job.id, e);
+                finish(job, PdfJobState.FAILED, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        } finally {
+            deleteInput(job);
+        }
+    }
+
+    private void finish(Job job, PdfJobState state, String error) {
+        synchronized (job) {
+            Instant now = Instant.now();
+            job.state = state;
+            job.error = error;
+            job.finishedAt = now;
+            job.expiresAt = now.plus(resultTtl);
+        }
+    }
+
+    protected void cleanup() {
+        try {
+            Instant now = Instant.now();
+            jobs.values().removeIf(job -> {
+                Instant expiresAt = job.expiresAt;
+                if (expiresAt != null && expiresAt.isBefore(now)) {
+                    deleteQuietly(resultPath(job));
+                    return true;
+                }
+                return false;
+            });
+            long oldest = now.minus(resultTtl).toEpochMilli();
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> !jobs.containsKey(jobId(file)))
+                        .filter(file -> file.toFile().lastModified() < oldest)
+                        .forEach(this::deleteQuietly);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Job cleanup of {} failed", directory, e);
+        }
+    }
+
+    private void copy(InputStream inputStream, Path path) throws IOException {
+        byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+        long length = 0;
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                length += read;
+                if (maxDocumentBytes > 0 && length > maxDocumentBytes) {
+                    throw new PdfContentTooLargeException(maxDocumentBytes);
+                }
+                outputStream.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private Path resultPath(Job job) {
+        return directory.resolve(job.id + RESULT_SUFFIX);
+    }
+
+    private static String jobId(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private void deleteInput(Job job) {
+        if (job.ownedInput != null) {
+            deleteQuietly(job.ownedInput);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Unable to delete {}", path, e);
+        }
+    }
+
+    private static class Job {
+        private final String id;
+        private final PdfPipelineRequest request;
+        private final Instant submittedAt = Instant.now();
+        private Path inputPath;
+        private Path ownedInput;
+        private Runnable task;
+        private volatile PdfJobState state = PdfJobState.QUEUED;
+        private volatile boolean cancelRequested;
+        private volatile Integer pageCount;
+        private volatile int pagesProcessed;
+        private volatile long bytesWritten;
+        private volatile String error;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile Instant expiresAt;
+
+        private Job(String id, PdfPipelineRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        private void checkCancelled() {
+            if (cancelRequested) {
+                throw new CancellationException("Job " + id + " cancelled");
+            }
+        }
+
+        private PdfJobStatus toStatus() {
+            return PdfJobStatus.builder()
+                    .id(id)
+                    .state(state)
+                    .pageCount(pageCount)
+                    .pagesProcessed(pageCount != null ? pagesProcessed : null)
+                    .bytesWritten(bytesWritten)
+                    .error(error)
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .expiresAt(expiresAt)
+                    .build();
+        }
+    }
+
+    /**
+     * Counts the bytes of the result and stops the writing of a cancelled job.
+     */
+    private static class JobOutputStream extends ProxyOutputStream {
+        private final Job job;
+
+        private JobOutputStream(Job job, OutputStream outputStream) {
+            super(outputStream);
+            this.job = job;
+        }
+
+        @Override
+        protected void beforeWrite(int n) throws IOException {
+            if (job.cancelRequested) {
+                throw new InterruptedIOException("Job " + job.id + " cancelled");
+            }
+            job.bytesWritten += n;
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package org.digitalmind.signaturecartrige.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.lowagie.text.PageSize;
 import com.lowagie.text.Rectangle;
 import com.lowagie.text.pdf.*;
@@ -7,15 +9,43 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.beryx.awt.color.ColorFactory;
+import org.digitalmind.signaturecartrige.batch.PdfBatchExecutor;
+import org.digitalmind.signaturecartrige.config.SignatureCartrigeProperties;
 import org.digitalmind.signaturecartrige.dto.*;
 import org.digitalmind.signaturecartrige.enumeration.SignatureFieldAppearance;
+import org.digitalmind.signaturecartrige.enumeration.SignatureImageType;
 import org.digitalmind.signaturecartrige.exception.PdfUtilException;
 import org.digitalmind.signaturecartrige.exception.PdfUtilRuntimeException;
+import org.digitalmind.signaturecartrige.image.CartridgeResultCache;
+import org.digitalmind.signaturecartrige.image.CartridgeTemplate;
+import org.digitalmind.signaturecartrige.image.ContentBounds;
+import org.digitalmind.signaturecartrige.image.FontCache;
+import org.digitalmind.signaturecartrige.image.FontFitter;
+import org.digitalmind.signaturecartrige.image.ImageBufferPool;
+import org.digitalmind.signaturecartrige.image.ImageEncoder;
+import org.digitalmind.signaturecartrige.image.ImageEncoders;
+import org.digitalmind.signaturecartrige.image.ImageScaler;
+import org.digitalmind.signaturecartrige.image.SignatureConfigurationCache;
+import org.digitalmind.signaturecartrige.image.TransparencyFilter;
+import org.digitalmind.signaturecartrige.metrics.PdfUtilMetrics;
+import org.digitalmind.signaturecartrige.pdf.FieldNameIndex;
+import org.digitalmind.signaturecartrige.pdf.FieldPattern;
+import org.digitalmind.signaturecartrige.pdf.PdfFlattenPlan;
+import org.digitalmind.signaturecartrige.pdf.PdfParallelFlattener;
+import org.digitalmind.signaturecartrige.pdf.PdfSource;
+import org.digitalmind.signaturecartrige.pdf.PdfStamperSession;
+import org.digitalmind.signaturecartrige.pdf.PdfTemplate;
+import org.digitalmind.signaturecartrige.pdf.PdfTemplateCache;
+import org.digitalmind.signaturecartrige.pdf.PdfWatermark;
 import org.digitalmind.signaturecartrige.sam.SignatureCartridgeRenderer;
 import org.digitalmind.signaturecartrige.sam.impl.SignatureCartridgeRendererImpl;
 import org.digitalmind.signaturecartrige.service.PdfUtilService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.stereotype.Service;
@@ -23,18 +53,21 @@ import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PreDestroy;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.*;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLConnection;
 import java.util.List;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleConfig.ENABLED;
 
@@ -44,8 +77,120 @@ import static org.digitalmind.signaturecartrige.config.SignatureCartrigeModuleCo
 public class PdfUtilServiceImpl implements PdfUtilService {
 
     private static final int IMAGE_TYPE = BufferedImage.TYPE_INT_ARGB;
-    private Map<SignatureConfigurationRequest, SignatureConfiguration> signatureConfigurationMap = new ConcurrentHashMap<>();
-    private Map<String, Font> fontMap = new ConcurrentHashMap<>();
+    private static final String OPERATION_INSPECT = "inspect";
+    private static final String OPERATION_REPLACE = "replace";
+    private static final String OPERATION_WATERMARK = "watermark";
+    private static final String OPERATION_FLATTEN = "flatten";
+    private static final String OPERATION_ADD_SIGNATURE_FIELDS = "addSignatureFields";
+    private static final String OPERATION_PROCESS = "process";
+    private static final String OPERATION_CREATE_SIGNATURE_IMAGE = "createSignatureImage";
+    private static final String OPERATION_WRITE_SIGNATURE_IMAGE = "writeSignatureImage";
+    private final PdfTemplateCache templateCache;
+    private final Cache<CartridgeTemplate.Key, CartridgeTemplate> cartridgeTemplateCache;
+    private final PdfBatchExecutor batchExecutor;
+    private final FontFitter fontFitter = new FontFitter(this::getFont, 10_000);
+    private final ImageScaler.Strategy scalingStrategy;
+    private final ImageEncoders imageEncoders;
+    private final ImageBufferPool imageBufferPool;
+    private final FontCache fontCache;
+    private final SignatureConfigurationCache configurationCache;
+    private final CartridgeResultCache resultCache;
+    private final SignatureCartrigeProperties.Watermark.Engine watermarkEngine;
+    private final PdfParallelFlattener parallelFlattener;
+    private final PdfUtilMetrics metrics;
+
+    public PdfUtilServiceImpl() {
+        this(new SignatureCartrigeProperties());
+    }
+
+    public PdfUtilServiceImpl(SignatureCartrigeProperties properties) {
+        this(properties, (MeterRegistry) null);
+    }
+
+    @Autowired
+    public PdfUtilServiceImpl(SignatureCartrigeProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(properties, meterRegistry.getIfAvailable());
+    }
+
+    public PdfUtilServiceImpl(SignatureCartrigeProperties properties, MeterRegistry meterRegistry) {
+        this.templateCache = new PdfTemplateCache(
+                properties.getTemplateCache().isEnabled(),
+                properties.getTemplateCache().getMaxBytes()
+        );
+        this.cartridgeTemplateCache = properties.getCartridgeTemplateCache().isEnabled()
+                ? Caffeine.newBuilder()
+                .maximumWeight(properties.getCartridgeTemplateCache().getMaxBytes())
+                .weigher((CartridgeTemplate.Key key, CartridgeTemplate template) -> (int) Math.min(Integer.MAX_VALUE, template.getEstimatedSize()))
+                .recordStats()
+                .build()
+                : null;
+        this.batchExecutor = new PdfBatchExecutor(properties.getBatch());
+        this.scalingStrategy = properties.getScaling().getStrategy();
+        this.imageEncoders = new ImageEncoders(properties.getEncoder());
+        this.imageBufferPool = new ImageBufferPool(properties.getImagePool().isEnabled() ? properties.getImagePool().getMaxBytes() : 0);
+        this.fontCache = new FontCache(properties.getFontCache().getMaxDerivedFonts());
+        if (properties.getFontCache().isPreload()) {
+            log.info("Preloaded {} fonts from {}", fontCache.preload(), FontCache.FONT_DIRECTORY);
+        }
+        this.configurationCache = new SignatureConfigurationCache(
+                properties.getConfigurationCache().isEnabled(),
+                properties.getConfigurationCache().getMaxEntries(),
+                properties.getConfigurationCache().getExpireAfterAccess()
+        );
+        this.resultCache = new CartridgeResultCache(
+                properties.getResultCache().isEnabled(),
+                properties.getResultCache().getMaxBytes(),
+                properties.getResultCache().getExpireAfterWrite()
+        );
+        this.watermarkEngine = properties.getWatermark().getEngine();
+        this.parallelFlattener = properties.getFlatten().getMode() == SignatureCartrigeProperties.Flatten.Mode.PARALLEL
+                ? new PdfParallelFlattener(properties.getFlatten().getParallelism(), properties.getFlatten().getMinPagesPerRange())
+                : null;
+        if (parallelFlattener != null) {
+            log.warn("Experimental parallel flatten enabled with {} page ranges", parallelFlattener.getParallelism());
+        }
+        this.metrics = new PdfUtilMetrics(properties.getMetrics().isEnabled() ? meterRegistry : null);
+        bindMetrics();
+    }
+
+    private void bindMetrics() {
+        metrics.bindCache("pdfTemplate", templateCache, PdfTemplateCache::stats, PdfTemplateCache::size);
+        metrics.bindCache("cartridgeTemplate", cartridgeTemplateCache, Cache::stats, Cache::estimatedSize);
+        metrics.bindCache("font", fontCache, FontCache::stats, FontCache::size);
+        metrics.bindCache("configuration", configurationCache, SignatureConfigurationCache::stats, SignatureConfigurationCache::size);
+        metrics.bindCache("result", resultCache, CartridgeResultCache::stats, CartridgeResultCache::size);
+        metrics.gauge("image.pool.retained.bytes", imageBufferPool, ImageBufferPool::getRetainedBytes);
+        metrics.counter("image.pool.acquires", imageBufferPool, ImageBufferPool::getHitCount, "result", "hit");
+        metrics.counter("image.pool.acquires", imageBufferPool, ImageBufferPool::getMissCount, "result", "miss");
+    }
+
+    public FontCache getFontCache() {
+        return fontCache;
+    }
+
+    public SignatureConfigurationCache getConfigurationCache() {
+        return configurationCache;
+    }
+
+    public CartridgeResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Encode signature images of the given type with another encoder, e.g. a faster PNG implementation.
+     */
+    public void registerImageEncoder(SignatureImageType imageType, ImageEncoder encoder) {
+        imageEncoders.register(imageType, encoder);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        batchExecutor.shutdown();
+        if (parallelFlattener != null) {
+            parallelFlattener.shutdown();
+        }
+        imageEncoders.shutdown();
+    }
 
     @NoArgsConstructor
     @AllArgsConstructor
@@ -58,250 +203,403 @@ public class PdfUtilServiceImpl implements PdfUtilService {
     @Override
     public InspectContentResponse inspect(InspectContentRequest request) throws IOException {
         Assert.notNull(request, this.getClass().getSimpleName() + ".validateSignatureFields: ValidateSignatureRequest must not be null");
-        Assert.notNull(request.getInputStream(), this.getClass().getSimpleName() + ".validateSignatureFields: Pdf stream must not be null");
-        InspectContentResponse.InspectContentResponseBuilder builder = InspectContentResponse.builder();
+        Assert.isTrue(request.getInputStream() != null || request.getInputPath() != null, this.getClass().getSimpleName() + ".validateSignatureFields: Pdf stream or path must not be null");
 
         List<String> requestFieldNameOrPatternList = request.getSignatureFields() != null ? request.getSignatureFields() : Collections.emptyList();
-        try (PdfReader reader = new PdfReader(request.getInputStream())) {
-            AcroFields acroFields = reader.getAcroFields();
-            List<String> signatureFieldNames = acroFields.getFieldNamesWithBlankSignatures();
-
-            builder.signatureOk(true);
-            signatureFieldNames.forEach(signatureFieldName -> {
-                float[] pos = acroFields.getFieldPositions(signatureFieldName);
-                builder.signatureFieldDetail(signatureFieldName, pos);
-                if (pos.length > 5) {
-                    builder.signatureRepeatedField(signatureFieldName);
-                    builder.signatureOk(false);
-                }
-            });
-
-            signatureFieldNames.forEach(pdfFieldName -> {
-                boolean matches = false;
-                for (String requestFieldNameOrPattern : requestFieldNameOrPatternList) {
-                    if (match(requestFieldNameOrPattern, pdfFieldName)) {
-                        matches = true;
-                        break;
-                    }
-                }
-                if (!matches) {
-                    builder.signatureAdditionalField(pdfFieldName);
-                    builder.signatureOk(false);
-                }
-            });
-
-            requestFieldNameOrPatternList.forEach(requestFieldNameOrPattern -> {
-                boolean matches = false;
-                for (String pdfFieldName : signatureFieldNames) {
-                    if (match(requestFieldNameOrPattern, pdfFieldName)) {
-                        matches = true;
-                        break;
-                    }
-                }
-                if (!matches) {
-                    builder.signatureMissingField(requestFieldNameOrPattern);
-                    builder.signatureOk(false);
-                }
-            });
-
-            Set<String> allFieldNames = acroFields.getAllFields().keySet();
-
-            builder.privateVersion(false);
-            if (request.getPrivateFields() != null && allFieldNames.size() > 0) {
-                for (String fieldNameOrPattern : request.getPrivateFields()) {
-                    Set<String> fieldNamesInPdf = null;
-                    if (fieldNameOrPattern.contains("*") || fieldNameOrPattern.contains("?")) {
-                        fieldNamesInPdf = allFieldNames.stream().filter(fieldName -> match(fieldNameOrPattern, fieldName)).collect(Collectors.toSet());
-                    } else {
-                        fieldNamesInPdf = allFieldNames.stream().filter(fieldName -> fieldNameOrPattern.equals(fieldName)).collect(Collectors.toSet());
-                    }
-                    if (fieldNamesInPdf != null && fieldNamesInPdf.size() > 0) {
-                        builder.privateVersion(true);
-                        fieldNamesInPdf.forEach(fieldName -> builder.privateField(fieldName));
-                    }
+        List<FieldPattern> requestFieldPatternList = compile(requestFieldNameOrPatternList);
+        PdfSource source = PdfSource.of(request.getInputStream(), request.getInputPath());
+        return metrics.operation(OPERATION_INSPECT, () -> {
+            metrics.inputBytes(OPERATION_INSPECT, source.length());
+            PdfTemplate template = metrics.phase(PdfUtilMetrics.PHASE_PDF_OPEN, () -> templateCache.get(source, () -> {
+                try (PdfReader reader = source.openReader()) {
+                    return PdfTemplate.of(reader.getAcroFields(), source.length());
                 }
+            }));
+            metrics.fields(OPERATION_INSPECT, template.getFieldNameIndex().getFieldNames().size());
+            return metrics.phase(PdfUtilMetrics.PHASE_PDF_FIELDS, () -> inspect(template, request, requestFieldPatternList));
+        });
+    }
+
+    private InspectContentResponse inspect(PdfTemplate template, InspectContentRequest request, List<FieldPattern> requestFieldPatternList) {
+        InspectContentResponse.InspectContentResponseBuilder builder = InspectContentResponse.builder();
+
+        List<String> signatureFieldNames = template.getBlankSignatureFieldNames();
+
+        builder.signatureOk(true);
+        signatureFieldNames.forEach(signatureFieldName -> {
+            float[] pos = template.getFieldPositions(signatureFieldName);
+            builder.signatureFieldDetail(signatureFieldName, pos);
+            if (pos.length > 5) {
+                builder.signatureRepeatedField(signatureFieldName);
+                builder.signatureOk(false);
             }
+        });
+
+        Set<String> matchedSignatureFieldNames = new HashSet<>();
+        // the signature fields were always matched ignoring case, unlike the other field names
+        FieldNameIndex.of(signatureFieldNames).resolveEachIgnoringCase(requestFieldPatternList).forEach((requestFieldPattern, fieldNamesInPdf) -> {
+            if (fieldNamesInPdf.isEmpty()) {
+                builder.signatureMissingField(requestFieldPattern.getPattern());
+                builder.signatureOk(false);
+            }
+            matchedSignatureFieldNames.addAll(fieldNamesInPdf);
+        });
 
-            if (request.getReplaceFields() != null && allFieldNames.size() > 0) {
-                for (String fieldNameOrPattern : request.getReplaceFields()) {
-                    Set<String> fieldNamesInPdf = null;
-                    if (fieldNameOrPattern.contains("*") || fieldNameOrPattern.contains("?")) {
-                        fieldNamesInPdf = allFieldNames.stream().filter(fieldName -> match(fieldNameOrPattern, fieldName)).collect(Collectors.toSet());
-                    } else {
-                        fieldNamesInPdf = allFieldNames.stream().filter(fieldName -> fieldNameOrPattern.equals(fieldName)).collect(Collectors.toSet());
-                    }
-                    if (fieldNamesInPdf != null && fieldNamesInPdf.size() > 0) {
-                        fieldNamesInPdf.forEach(fieldName -> builder.replaceField(fieldName));
-                    }
-                }
-            } else {
-                builder.replaceFields(allFieldNames);
+        signatureFieldNames.forEach(pdfFieldName -> {
+            if (!matchedSignatureFieldNames.contains(pdfFieldName)) {
+                builder.signatureAdditionalField(pdfFieldName);
+                builder.signatureOk(false);
             }
+        });
 
-            return builder.build();
+        FieldNameIndex fieldNameIndex = template.getFieldNameIndex();
+
+        builder.privateVersion(false);
+        if (request.getPrivateFields() != null && !fieldNameIndex.isEmpty()) {
+            Set<String> fieldNamesInPdf = fieldNameIndex.resolve(request.getPrivateFields());
+            if (fieldNamesInPdf.size() > 0) {
+                builder.privateVersion(true);
+                builder.privateFields(fieldNamesInPdf);
+            }
+        }
+
+        if (request.getReplaceFields() != null && !fieldNameIndex.isEmpty()) {
+            builder.replaceFields(fieldNameIndex.resolve(request.getReplaceFields()));
+        } else {
+            builder.replaceFields(fieldNameIndex.getFieldNames());
         }
+
+        return builder.build();
     }
 
     @Override
     public ReplaceContentResponse replace(ReplaceContentRequest request) throws IOException {
-        Assert.notNull(request.getInputStream(), this.getClass().getSimpleName() + ".validateSignatureFields: Pdf stream must not be null");
-        ReplaceContentResponse response = new ReplaceContentResponse();
-        PdfStamper stamper = null;
-        try (PdfReader reader = new PdfReader(request.getInputStream())) {
-            stamper = new PdfStamper(reader, request.getOutputStream(), '\0', false);
-            AcroFields acroFields = stamper.getAcroFields();
-            Set<String> fieldNames = acroFields.getAllFields().keySet();
-            if (request.getFormFields() != null && fieldNames.size() > 0) {
-                for (Map.Entry<String, String> entry : request.getFormFields().entrySet()) {
-                    String fieldNameOrPattern = entry.getKey();
-                    Set<String> fieldNamesInPdf = null;
-                    if (fieldNameOrPattern.contains("*") || fieldNameOrPattern.contains("?")) {
-                        fieldNamesInPdf = fieldNames.stream().filter(fieldName -> match(fieldNameOrPattern, fieldName)).collect(Collectors.toSet());
-                    } else {
-                        fieldNamesInPdf = fieldNames.stream().filter(fieldName -> fieldNameOrPattern.equals(fieldName)).collect(Collectors.toSet());
-                    }
-                    for (String fieldName : fieldNamesInPdf) {
-                        String fieldCurrentValue = acroFields.getField(fieldName);
-                        String fieldNextValue = entry.getValue();
-                        acroFields.setField(fieldName, fieldNextValue);
-
-                        //if (fieldValue != null) {
-                        //    acroFields.setField(entry.getKey(), entry.getValue());
-                        //    //acroFields.setFieldProperty(entry.getKey(), "setfflags", PdfFormField.FF_READ_ONLY, null);
-                        //}
-                    }
-                }
-            }
-            // close pdf stamper
-            //stamper.setFormFlattening(true);
-        } finally {
-            stamper.close();
-        }
-        return response;
+        Assert.isTrue(request.getInputStream() != null || request.getInputPath() != null, this.getClass().getSimpleName() + ".validateSignatureFields: Pdf stream or path must not be null");
+        PdfSource source = PdfSource.of(request.getInputStream(), request.getInputPath());
+        return withSession(OPERATION_REPLACE, source, request.getOutputStream(), request.hasAppendMode(), session -> replace(session, request));
     }
 
     public WatermarkContentResponse watermark(WatermarkContentRequest request) throws IOException {
-        Assert.notNull(request.getInputStream(), this.getClass().getSimpleName() + ".watermark: Pdf input stream must not be null");
+        Assert.isTrue(request.getInputStream() != null || request.getInputPath() != null, this.getClass().getSimpleName() + ".watermark: Pdf input stream or path must not be null");
         Assert.notNull(request.getOutputStream(), this.getClass().getSimpleName() + ".watermark: Pdf output stream must not be null");
         Assert.notNull(request.getWatermarkStream(), this.getClass().getSimpleName() + ".watermark: Pdf watermark stream must not be null");
-        WatermarkContentResponse response = new WatermarkContentResponse();
-        PdfStamper stamper = null;
-        try (PdfReader reader = new PdfReader(request.getInputStream());
-        ) {
-            stamper = new PdfStamper(reader, request.getOutputStream(), '\0', false);
-            stamper.setFormFlattening(true);
-            int n = reader.getNumberOfPages();
-            int i = 0;
-            PdfContentByte under;
-            PdfContentByte over;
-            byte[] watermarkImageByeArray = IOUtils.toByteArray(request.getWatermarkStream());
-            com.lowagie.text.Image image = com.lowagie.text.Image.getInstance(watermarkImageByeArray);
-            image.scaleToFit(PageSize.A5.getWidth(), PageSize.A5.getHeight());
-            while (i < n) {
-                i++;
-                under = stamper.getUnderContent(i);
-                over = stamper.getOverContent(i);
-                float x = (reader.getPageSize(i).getWidth() - image.getScaledWidth()) / 2;
-                float y = (reader.getPageSize(i).getHeight() - image.getScaledHeight()) / 2;
-                image.setAbsolutePosition(x, y);
-
-                over.saveState();
-                PdfGState state = new PdfGState();
-                state.setFillOpacity(0.5f);
-                over.setGState(state);
-                over.addImage(image);
-                over.restoreState();
+        PdfSource source = PdfSource.of(request.getInputStream(), request.getInputPath());
+        return withSession(OPERATION_WATERMARK, source, request.getOutputStream(), false, session -> watermark(session, request));
+    }
+
+    @Override
+    public FlattenContentResponse flatten(FlattenContentRequest request) throws IOException {
+        Assert.isTrue(request.getInputStream() != null || request.getInputPath() != null, this.getClass().getSimpleName() + ".validateSignatureFields: Pdf stream or path must not be null");
+        PdfSource source = PdfSource.of(request.getInputStream(), request.getInputPath());
+        if (parallelFlattener == null || !PdfFlattenPlan.isFlattenAll(request)) {
+            return withSession(OPERATION_FLATTEN, source, request.getOutputStream(), false, session -> flatten(session, request));
+        }
+        return metrics.operation(OPERATION_FLATTEN, () -> {
+            metrics.inputBytes(OPERATION_FLATTEN, source.length());
+            // planned on the reader the stamper falls back to, so the document is parsed once either way
+            PdfReader reader = metrics.phase(PdfUtilMetrics.PHASE_PDF_OPEN, source::openReader);
+            PdfParallelFlattener.Plan plan;
+            try {
+                plan = metrics.phase(PdfUtilMetrics.PHASE_PDF_FIELDS, () -> parallelFlattener.plan(source, reader));
+            } catch (RuntimeException e) {
+                reader.close();
+                throw e;
             }
-        } finally {
-            if (stamper != null) {
-                stamper.close();
+            if (plan == null) {
+                return inSession(OPERATION_FLATTEN, source, reader, request.getOutputStream(), false, session -> flatten(session, request));
             }
-        }
-        return response;
+            reader.close();
+            CountingOutputStream countingOutputStream = new CountingOutputStream(request.getOutputStream());
+            int flattenedFieldCount = parallelFlattener.flatten(plan, countingOutputStream);
+            metrics.outputBytes(OPERATION_FLATTEN, countingOutputStream.getByteCount());
+            FlattenContentResponse response = new FlattenContentResponse();
+            response.setStrategy(FlattenStrategy.FULL);
+            response.setFlattenedFieldCount(flattenedFieldCount);
+            response.setKeptFieldCount(0);
+            return response;
+        });
     }
 
+    @Override
+    public AddSignatureContentResponse addSignatureFields(AddSignatureContentRequest request) throws IOException {
+        Assert.isTrue(request.getInputStream() != null || request.getInputPath() != null, this.getClass().getSimpleName() + ".addSignatures: Pdf stream or path must not be null");
+        PdfSource source = PdfSource.of(request.getInputStream(), request.getInputPath());
+        return withSession(OPERATION_ADD_SIGNATURE_FIELDS, source, request.getOutputStream(), request.hasAppendMode(), session -> addSignatureFields(session, request));
+    }
 
     @Override
-    public FlattenContentResponse flatten(FlattenContentRequest request) throws IOException {
-        Assert.notNull(request.getInputStream(), this.getClass().getSimpleName() + ".validateSignatureFields: Pdf stream must not be null");
-        FlattenContentResponse response = new FlattenContentResponse();
-        PdfStamper stamper = null;
-        try (PdfReader reader = new PdfReader(request.getInputStream())) {
-
-            stamper = new PdfStamper(reader, request.getOutputStream(), '\0', false);
-            // close pdf stamper
-            AcroFields acroFields = stamper.getAcroFields();
-            Set<String> flattenFieldNames = new HashSet<>();
-            Set<String> acroFieldNames = acroFields.getAllFields().keySet();
-            Set<String> requestFlattenFieldNames = null;
-
-            if (!ObjectUtils.isEmpty(request.getFlattenFields()) && request.getFlattenFields().size() == 1 && "*".equalsIgnoreCase(request.getFlattenFields().get(0))) {
-                requestFlattenFieldNames = new HashSet<>(acroFieldNames);
-            } else {
-                requestFlattenFieldNames = match(request.getFlattenFields(), acroFieldNames);
+    public PdfPipelineResponse process(PdfPipelineRequest request) throws IOException {
+        Assert.notNull(request, this.getClass().getSimpleName() + ".process: PdfPipelineRequest must not be null");
+        Assert.isTrue(request.getInputStream() != null || request.getInputPath() != null, this.getClass().getSimpleName() + ".process: Pdf input stream or path must not be null");
+        Assert.notNull(request.getOutputStream(), this.getClass().getSimpleName() + ".process: Pdf output stream must not be null");
+        if (request.hasAppendMode() && request.getOperations() != null) {
+            for (PdfPipelineOperation operation : request.getOperations()) {
+                if (isFlattening(operation)) {
+                    throw new PdfUtilRuntimeException("Pipeline operation " + operation.getClass().getSimpleName() + " flattens the form, which is not supported in append mode");
+                }
+            }
+        }
+        PdfPipelineResponse.PdfPipelineResponseBuilder<?, ?> builder = PdfPipelineResponse.builder();
+        PdfSource source = PdfSource.of(request.getInputStream(), request.getInputPath());
+        withSession(OPERATION_PROCESS, source, request.getOutputStream(), request.hasAppendMode(), session -> {
+            if (request.getProgressListener() != null) {
+                session.setProgressListener(request.getProgressListener());
+            }
+            if (request.getOperations() != null) {
+                for (PdfPipelineOperation operation : request.getOperations()) {
+                    builder.operationResponse(process(session, operation));
+                }
             }
-            Set<String> requestNonFlattenFieldNames = match(request.getNonFlattenFields(), acroFieldNames);
+            return null;
+        });
+        return builder.build();
+    }
 
-            flattenFieldNames.addAll(requestFlattenFieldNames);
+    @FunctionalInterface
+    protected interface SessionOperation<T> {
+        T apply(PdfStamperSession session) throws IOException;
+    }
 
-            flattenFieldNames.removeAll(requestNonFlattenFieldNames);
+    /**
+     * Open a session on the source, apply the operation and write the document, timing each step.
+     */
+    protected <T> T withSession(String operationName, PdfSource source, OutputStream outputStream, boolean append, SessionOperation<T> operation) throws IOException {
+        return metrics.operation(operationName, () -> {
+            metrics.inputBytes(operationName, source.length());
+            return inSession(operationName, source, null, outputStream, append, operation);
+        });
+    }
 
-            if (Boolean.TRUE.equals(request.getFlattenSignatureFields())) {
-                for (String fieldName : acroFieldNames) {
-                    if (AcroFields.FIELD_TYPE_SIGNATURE == acroFields.getFieldType(fieldName)) {
-                        flattenFieldNames.add(fieldName);
-                    }
-                }
+    /**
+     * The body of {@link #withSession}, run inside the operation's timer.
+     *
+     * @param reader a reader of the source already open, which the session takes over; {@code null} to open one
+     */
+    private <T> T inSession(String operationName, PdfSource source, PdfReader reader, OutputStream outputStream, boolean append, SessionOperation<T> operation) throws IOException {
+        CountingOutputStream countingOutputStream = metrics.isEnabled() && outputStream != null ? new CountingOutputStream(outputStream) : null;
+        OutputStream sessionOutputStream = countingOutputStream != null ? countingOutputStream : outputStream;
+        PdfStamperSession session = metrics.phase(PdfUtilMetrics.PHASE_PDF_OPEN, () -> reader != null
+                ? PdfStamperSession.open(reader, source, sessionOutputStream, templateCache, append)
+                : PdfStamperSession.open(source, sessionOutputStream, templateCache, append)
+        );
+        T result;
+        try {
+            metrics.fields(operationName, session.getTemplate().getFieldNameIndex().getFieldNames().size());
+            result = operation.apply(session);
+        } catch (IOException | RuntimeException | Error e) {
+            try {
+                session.close();
+            } catch (IOException | RuntimeException closeException) {
+                e.addSuppressed(closeException);
             }
+            throw e;
+        }
+        metrics.phase(PdfUtilMetrics.PHASE_PDF_CLOSE, () -> {
+            session.close();
+            return null;
+        });
+        if (countingOutputStream != null) {
+            metrics.outputBytes(operationName, countingOutputStream.getByteCount());
+        }
+        return result;
+    }
 
-            if (Boolean.FALSE.equals(request.getFlattenSignatureFields())) {
-                for (String fieldName : acroFieldNames) {
-                    if (AcroFields.FIELD_TYPE_SIGNATURE == acroFields.getFieldType(fieldName)) {
-                        flattenFieldNames.remove(fieldName);
-                    }
+    /**
+     * Batch variants: every request runs on the bounded batch executor and gets its own future. The calling thread
+     * blocks while the executor queue is full.
+     */
+    @Override
+    public List<CompletableFuture<InspectContentResponse>> inspectAll(Collection<InspectContentRequest> requests) {
+        return batchExecutor.submitAll(requests, this::inspect);
+    }
+
+    @Override
+    public List<CompletableFuture<ReplaceContentResponse>> replaceAll(Collection<ReplaceContentRequest> requests) {
+        return batchExecutor.submitAll(requests, this::replace);
+    }
+
+    @Override
+    public List<CompletableFuture<WatermarkContentResponse>> watermarkAll(Collection<WatermarkContentRequest> requests) {
+        return batchExecutor.submitAll(requests, this::watermark);
+    }
+
+    @Override
+    public List<CompletableFuture<FlattenContentResponse>> flattenAll(Collection<FlattenContentRequest> requests) {
+        return batchExecutor.submitAll(requests, this::flatten);
+    }
+
+    @Override
+    public List<CompletableFuture<AddSignatureContentResponse>> addSignatureFieldsAll(Collection<AddSignatureContentRequest> requests) {
+        return batchExecutor.submitAll(requests, this::addSignatureFields);
+    }
+
+    @Override
+    public List<CompletableFuture<PdfPipelineResponse>> processAll(Collection<PdfPipelineRequest> requests) {
+        return batchExecutor.submitAll(requests, this::process);
+    }
+
+    /**
+     * Whether the operation flattens the form; checked for the whole pipeline before anything is written, since an
+     * incremental update cannot flatten.
+     */
+    protected boolean isFlattening(PdfPipelineOperation operation) {
+        return operation instanceof FlattenContentRequest || operation instanceof WatermarkContentRequest;
+    }
+
+    protected Object process(PdfStamperSession session, PdfPipelineOperation operation) throws IOException {
+        if (operation instanceof ReplaceContentRequest) {
+            return replace(session, (ReplaceContentRequest) operation);
+        }
+        if (operation instanceof AddSignatureContentRequest) {
+            return addSignatureFields(session, (AddSignatureContentRequest) operation);
+        }
+        if (operation instanceof WatermarkContentRequest) {
+            Assert.notNull(((WatermarkContentRequest) operation).getWatermarkStream(), this.getClass().getSimpleName() + ".process: Pdf watermark stream must not be null");
+            return watermark(session, (WatermarkContentRequest) operation);
+        }
+        if (operation instanceof FlattenContentRequest) {
+            return flatten(session, (FlattenContentRequest) operation);
+        }
+        throw new PdfUtilRuntimeException("Unsupported pipeline operation " + (operation != null ? operation.getClass().getSimpleName() : null));
+    }
+
+    protected ReplaceContentResponse replace(PdfStamperSession session, ReplaceContentRequest request) throws IOException {
+        ReplaceContentResponse response = new ReplaceContentResponse();
+        FieldNameIndex fieldNameIndex = session.getTemplate().getFieldNameIndex();
+        if (request.getFormFields() != null && !fieldNameIndex.isEmpty()) {
+            Map<FieldPattern, String> formFieldValues = new LinkedHashMap<>();
+            for (Map.Entry<String, String> entry : request.getFormFields().entrySet()) {
+                if (!ObjectUtils.isEmpty(entry.getKey())) {
+                    formFieldValues.put(FieldPattern.compile(entry.getKey()), entry.getValue());
                 }
             }
+            Map<FieldPattern, Set<String>> resolvedFieldNames = metrics.phase(PdfUtilMetrics.PHASE_PDF_FIELDS, () -> fieldNameIndex.resolveEach(formFieldValues.keySet()));
+            AcroFields acroFields = session.getAcroFields();
+            for (Map.Entry<FieldPattern, Set<String>> entry : resolvedFieldNames.entrySet()) {
+                for (String fieldName : entry.getValue()) {
+                    String fieldNextValue = formFieldValues.get(entry.getKey());
+                    acroFields.setField(fieldName, fieldNextValue);
+
+                    //if (fieldValue != null) {
+                    //    acroFields.setField(entry.getKey(), entry.getValue());
+                    //    //acroFields.setFieldProperty(entry.getKey(), "setfflags", PdfFormField.FF_READ_ONLY, null);
+                    //}
+                }
+            }
+        }
+        return response;
+    }
 
+    protected WatermarkContentResponse watermark(PdfStamperSession session, WatermarkContentRequest request) throws IOException {
+        if (watermarkEngine == SignatureCartrigeProperties.Watermark.Engine.PER_PAGE) {
+            return watermarkPerPage(session, request);
+        }
+        WatermarkContentResponse response = new WatermarkContentResponse();
+        session.flattenAll();
+        PdfWatermark.of(IOUtils.toByteArray(request.getWatermarkStream()), request).apply(session);
+        return response;
+    }
 
-            if (flattenFieldNames.size() != acroFieldNames.size()) {
-                for (String fieldName : flattenFieldNames) {
-                    stamper.partialFormFlattening(fieldName);
-                }
+    protected WatermarkContentResponse watermarkPerPage(PdfStamperSession session, WatermarkContentRequest request) throws IOException {
+        WatermarkContentResponse response = new WatermarkContentResponse();
+        PdfReader reader = session.getReader();
+        PdfStamper stamper = session.getStamper();
+        session.flattenAll();
+        int n = reader.getNumberOfPages();
+        int i = 0;
+        PdfContentByte under;
+        PdfContentByte over;
+        byte[] watermarkImageByeArray = IOUtils.toByteArray(request.getWatermarkStream());
+        com.lowagie.text.Image image = com.lowagie.text.Image.getInstance(watermarkImageByeArray);
+        image.scaleToFit(PageSize.A5.getWidth(), PageSize.A5.getHeight());
+        while (i < n) {
+            i++;
+            under = stamper.getUnderContent(i);
+            over = stamper.getOverContent(i);
+            float x = (reader.getPageSize(i).getWidth() - image.getScaledWidth()) / 2;
+            float y = (reader.getPageSize(i).getHeight() - image.getScaledHeight()) / 2;
+            image.setAbsolutePosition(x, y);
+
+            over.saveState();
+            PdfGState state = new PdfGState();
+            state.setFillOpacity(0.5f);
+            over.setGState(state);
+            over.addImage(image);
+            over.restoreState();
+            session.pagesProcessed(i);
+        }
+        return response;
+    }
 
-            }
+    protected FlattenContentResponse flatten(PdfStamperSession session, FlattenContentRequest request) {
+        FlattenContentResponse response = new FlattenContentResponse();
+        PdfTemplate template = session.getTemplate();
+        // in a pipeline the plan applied is the union of the flattening stages
+        session.addFlattenPlanListener(plan -> report(response, plan));
+        if (PdfFlattenPlan.isFlattenAll(request)) {
+            session.flattenAll();
+            session.setFreeTextFlattening(true);
+            return response;
+        }
+        Set<String> flattenFieldNames = new HashSet<>();
+        FieldNameIndex fieldNameIndex = template.getFieldNameIndex();
+        Set<String> requestFlattenFieldNames = metrics.phase(PdfUtilMetrics.PHASE_PDF_FIELDS, () -> fieldNameIndex.resolve(request.getFlattenFields()));
+        Set<String> requestNonFlattenFieldNames = metrics.phase(PdfUtilMetrics.PHASE_PDF_FIELDS, () -> fieldNameIndex.resolve(request.getNonFlattenFields()));
 
-            stamper.setFormFlattening(true);
-            stamper.setFreeTextFlattening(true);
-        } finally {
-            stamper.close();
+        flattenFieldNames.addAll(requestFlattenFieldNames);
+
+        flattenFieldNames.removeAll(requestNonFlattenFieldNames);
+        boolean excludesFields = !requestNonFlattenFieldNames.isEmpty();
+
+        if (Boolean.TRUE.equals(request.getFlattenSignatureFields())) {
+            flattenFieldNames.addAll(template.getFieldNames(AcroFields.FIELD_TYPE_SIGNATURE));
+        }
+
+        if (Boolean.FALSE.equals(request.getFlattenSignatureFields())) {
+            flattenFieldNames.removeAll(template.getFieldNames(AcroFields.FIELD_TYPE_SIGNATURE));
+            excludesFields = excludesFields || !template.getFieldNames(AcroFields.FIELD_TYPE_SIGNATURE).isEmpty();
         }
+
+
+        // an empty selection flattens every field, as OpenPDF does, unless fields of the form were excluded
+        PdfFlattenPlan plan = flattenFieldNames.isEmpty() && !excludesFields
+                ? PdfFlattenPlan.full(template)
+                : PdfFlattenPlan.of(template, flattenFieldNames);
+        if (plan.getStrategy() == FlattenStrategy.FULL) {
+            session.flattenAll();
+        } else if (plan.getStrategy() != FlattenStrategy.NONE) {
+            session.flatten(plan.getFlattenFieldNames());
+        }
+
+        session.setFreeTextFlattening(true);
         return response;
     }
 
-    @Override
-    public AddSignatureContentResponse addSignatureFields(AddSignatureContentRequest request) throws IOException {
-        Assert.notNull(request.getInputStream(), this.getClass().getSimpleName() + ".addSignatures: Pdf stream must not be null");
+    private static void report(FlattenContentResponse response, PdfFlattenPlan plan) {
+        response.setStrategy(plan.getStrategy());
+        response.setFlattenedFieldCount(plan.getFlattenedFieldCount());
+        response.setKeptFieldCount(plan.getKeptFieldCount());
+    }
+
+    protected AddSignatureContentResponse addSignatureFields(PdfStamperSession session, AddSignatureContentRequest request) {
         AddSignatureContentResponse response = new AddSignatureContentResponse();
-        PdfStamper stamper = null;
-        try (PdfReader reader = new PdfReader(request.getInputStream())) {
-            stamper = new PdfStamper(reader, request.getOutputStream(), '\0', false);
-            // close pdf stamper
-            if (request.getSignatureFields() != null && request.getSignatureFields().size() > 0) {
-                for (Map.Entry<String, PdfFieldPosition> entry : request.getSignatureFields().entrySet()) {
-                    String pdfFieldName = entry.getKey();
-                    PdfFieldPosition pdfFieldPosition = entry.getValue();
-                    PdfFormField signatureField = PdfFormField.createSignature(stamper.getWriter());
-                    signatureField.setWidget(new Rectangle(pdfFieldPosition.getLeft(), pdfFieldPosition.getTop(), pdfFieldPosition.getRight(), pdfFieldPosition.getBottom()), null);
-                    signatureField.setFlags(PdfAnnotation.FLAGS_PRINT);
-                    signatureField.put(PdfName.DA, new PdfString("/Helv 0 Tf 0 g"));
-                    signatureField.setFieldName(pdfFieldName);
-                    signatureField.setPage((int) pdfFieldPosition.getPage());
-                    stamper.addAnnotation(signatureField, 1);
-                }
+        PdfStamper stamper = session.getStamper();
+        if (request.getSignatureFields() != null && request.getSignatureFields().size() > 0) {
+            for (Map.Entry<String, PdfFieldPosition> entry : request.getSignatureFields().entrySet()) {
+                String pdfFieldName = entry.getKey();
+                PdfFieldPosition pdfFieldPosition = entry.getValue();
+                PdfFormField signatureField = PdfFormField.createSignature(stamper.getWriter());
+                signatureField.setWidget(new Rectangle(pdfFieldPosition.getLeft(), pdfFieldPosition.getTop(), pdfFieldPosition.getRight(), pdfFieldPosition.getBottom()), null);
+                signatureField.setFlags(PdfAnnotation.FLAGS_PRINT);
+                signatureField.put(PdfName.DA, new PdfString("/Helv 0 Tf 0 g"));
+                signatureField.setFieldName(pdfFieldName);
+                signatureField.setPage((int) pdfFieldPosition.getPage());
+                stamper.addAnnotation(signatureField, 1);
             }
-            stamper.setFormFlattening(true);
-        } finally {
-            stamper.close();
+        }
+        // an incremental update leaves the existing form untouched
+        if (!session.isAppend()) {
+            session.flattenAll();
         }
         return response;
     }
@@ -327,56 +625,30 @@ public class PdfUtilServiceImpl implements PdfUtilService {
         if (ObjectUtils.isEmpty(fieldNameOrPattern) || ObjectUtils.isEmpty(fieldNames)) {
             //do nothing
         } else {
-            if (fieldNameOrPattern.contains("*") || fieldNameOrPattern.contains("?")) {
-                result = fieldNames.stream().filter(fieldName -> match(fieldNameOrPattern, fieldName)).collect(Collectors.toSet());
-            } else {
-                result = fieldNames.stream().filter(fieldName -> fieldNameOrPattern.equals(fieldName)).collect(Collectors.toSet());
+            result = match(FieldPattern.compile(fieldNameOrPattern), fieldNames);
+        }
+        return result;
+    }
+
+    public Set<String> match(FieldPattern fieldPattern, Collection<String> fieldNames) {
+        Set<String> result = new HashSet<>();
+        if (fieldPattern.isWildcard()) {
+            for (String fieldName : fieldNames) {
+                if (fieldPattern.matches(fieldName)) {
+                    result.add(fieldName);
+                }
             }
+        } else if (fieldNames.contains(fieldPattern.getPattern())) {
+            result.add(fieldPattern.getPattern());
         }
         return result;
     }
 
-    //https://www.geeksforgeeks.org/wildcard-character-matching/
-    //https://www.geeksforgeeks.org/wildcard-pattern-matching-three-symbols/?ref=rp
     public boolean match(String fieldNameOrPattern, String fieldName) {
         if (fieldNameOrPattern == null || fieldName == null) {
             return false;
         }
-        fieldNameOrPattern = fieldNameOrPattern.toLowerCase();
-        fieldName = fieldName.toLowerCase();
-
-        // If we reach at the end of both strings,
-        // we are done
-        if (fieldNameOrPattern.length() == 0 && fieldName.length() == 0)
-            return true;
-
-        // Make sure that the characters after '*'
-        // are present in second string.
-        // This function assumes that the first
-        // string will not contain two consecutive '*'
-        if (fieldNameOrPattern.length() > 1 && fieldNameOrPattern.charAt(0) == '*' &&
-                fieldName.length() == 0)
-            return false;
-
-        // If the first string contains '?',
-        // or current characters of both strings match
-        if ((fieldNameOrPattern.length() > 1 && fieldNameOrPattern.charAt(0) == '?') ||
-                (
-                        fieldNameOrPattern.length() != 0 && fieldName.length() != 0 &&
-                                fieldNameOrPattern.charAt(0) == fieldName.charAt(0)
-                ))
-            return match(
-                    fieldNameOrPattern.substring(1),
-                    fieldName.substring(1)
-            );
-
-        // If there is *, then there are two possibilities
-        // a) We consider current character of second string
-        // b) We ignore current character of second string.
-        if (fieldNameOrPattern.length() > 0 && fieldNameOrPattern.charAt(0) == '*')
-            return match(fieldNameOrPattern.substring(1), fieldName) ||
-                    match(fieldNameOrPattern, fieldName.substring(1));
-        return false;
+        return FieldPattern.compile(fieldNameOrPattern).matches(fieldName);
     }
 
     @Override
@@ -384,11 +656,23 @@ public class PdfUtilServiceImpl implements PdfUtilService {
         if (fieldNames == null || fieldNames.size() == 0 || fieldNameOrPattern == null) {
             return false;
         }
+        FieldPattern fieldPattern = FieldPattern.compile(fieldNameOrPattern);
+        for (String fieldName : fieldNames) {
+            if (fieldPattern.matches(fieldName)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        return fieldNames.stream()
-                .filter(fieldName -> match(fieldNameOrPattern, fieldName))
-                .findFirst()
-                .isPresent();
+    private List<FieldPattern> compile(Collection<String> fieldNameOrPatternCollection) {
+        List<FieldPattern> fieldPatternList = new ArrayList<>(fieldNameOrPatternCollection.size());
+        for (String fieldNameOrPattern : fieldNameOrPatternCollection) {
+            if (fieldNameOrPattern != null) {
+                fieldPatternList.add(FieldPattern.compile(fieldNameOrPattern));
+            }
+        }
+        return fieldPatternList;
     }
 
     @Override
@@ -398,12 +682,100 @@ public class PdfUtilServiceImpl implements PdfUtilService {
 
     @Override
     public SignatureCartridgeResponse createSignatureImage(SignatureCartridgeRequest signatureCartridgeRequest, Integer width, Integer height) throws PdfUtilException {
-        SignatureCartridgeResponse signatureCartridgeResponse = null;
+        return metrics.operation(OPERATION_CREATE_SIGNATURE_IMAGE, () -> {
+            SignatureCartridgeResponse signatureCartridgeResponse = createOrGetSignatureImage(signatureCartridgeRequest, width, height, false);
+            metrics.outputBytes(OPERATION_CREATE_SIGNATURE_IMAGE, ((ByteArrayResource) signatureCartridgeResponse.getResource()).contentLength());
+            return signatureCartridgeResponse;
+        });
+    }
+
+    /**
+     * @param shared whether the response may hold the cached bytes themselves; a response handed to the caller
+     *               gets its own copy, since the bytes of a {@link ByteArrayResource} can be modified
+     */
+    private SignatureCartridgeResponse createOrGetSignatureImage(SignatureCartridgeRequest signatureCartridgeRequest, Integer width, Integer height, boolean shared) throws PdfUtilException {
+        if (!resultCache.isEnabled()) {
+            return renderSignatureImage(signatureCartridgeRequest, width, height);
+        }
+        Integer finalWidth = width != null ? width : signatureCartridgeRequest.getConfiguration().getNewWidth();
+        Integer finalHeight = height != null ? height : signatureCartridgeRequest.getConfiguration().getNewHeight();
+        SignatureCartridgeRequest renderRequest = signatureCartridgeRequest;
+        Object signature = signatureCartridgeRequest.getSignature();
+        String signatureDigest;
+        try {
+            if (signature instanceof String) {
+                signatureDigest = "text:" + signature;
+            } else if (signature instanceof MultipartFile) {
+                signatureDigest = "image:" + PdfTemplate.digest(((MultipartFile) signature).getBytes());
+            } else if (signature instanceof InputStream) {
+                // the stream is read once, the render gets its content
+                byte[] content = IOUtils.toByteArray((InputStream) signature);
+                signatureDigest = "image:" + PdfTemplate.digest(content);
+                renderRequest = new SignatureCartridgeRequest(
+                        signatureCartridgeRequest.getSession(),
+                        new ByteArrayInputStream(content),
+                        signatureCartridgeRequest.getTrace(),
+                        signatureCartridgeRequest.getDate(),
+                        signatureCartridgeRequest.getConfiguration()
+                );
+            } else if (signature instanceof File) {
+                try (InputStream inputStream = new FileInputStream((File) signature)) {
+                    signatureDigest = "image:" + PdfTemplate.digest(inputStream);
+                }
+            } else {
+                return renderSignatureImage(signatureCartridgeRequest, width, height);
+            }
+        } catch (IOException e) {
+            throw new PdfUtilException("Unable to read the signature content", e);
+        }
+
+        String key = CartridgeResultCache.key(signatureCartridgeRequest, finalWidth, finalHeight, signatureDigest);
+        byte[] content = resultCache.get(key);
+        if (content != null) {
+            return createSignatureCartridgeResponse(signatureCartridgeRequest, signatureCartridgeRequest.getConfiguration().getImageType(), shared ? content : content.clone());
+        }
+        SignatureCartridgeResponse signatureCartridgeResponse = renderSignatureImage(renderRequest, width, height);
+        content = ((ByteArrayResource) signatureCartridgeResponse.getResource()).getByteArray();
+        resultCache.put(key, shared ? content : content.clone());
+        return signatureCartridgeResponse;
+    }
+
+    @Override
+    public void writeSignatureImage(SignatureCartridgeRequest signatureCartridgeRequest, Integer width, Integer height, OutputStream outputStream) throws PdfUtilException {
+        metrics.operation(OPERATION_WRITE_SIGNATURE_IMAGE, () -> {
+            CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+            if (!resultCache.isEnabled()) {
+                renderSignatureImage(signatureCartridgeRequest, width, height, metrics.isEnabled() ? countingOutputStream : outputStream);
+            } else {
+                // the cache holds the encoded bytes, they are rendered or taken from it first
+                SignatureCartridgeResponse signatureCartridgeResponse = createOrGetSignatureImage(signatureCartridgeRequest, width, height, true);
+                try {
+                    countingOutputStream.write(((ByteArrayResource) signatureCartridgeResponse.getResource()).getByteArray());
+                } catch (IOException e) {
+                    throw new PdfUtilException("Unable to write signature file into an image stream", e);
+                }
+            }
+            metrics.outputBytes(OPERATION_WRITE_SIGNATURE_IMAGE, countingOutputStream.getByteCount());
+            return null;
+        });
+    }
+
+    protected SignatureCartridgeResponse renderSignatureImage(SignatureCartridgeRequest signatureCartridgeRequest, Integer width, Integer height) throws PdfUtilException {
+        ByteArrayOutputStream signatureImageStream = new ByteArrayOutputStream();
+        SignatureImageType imageType = renderSignatureImage(signatureCartridgeRequest, width, height, signatureImageStream);
+        return createSignatureCartridgeResponse(signatureCartridgeRequest, imageType, signatureImageStream.toByteArray());
+    }
+
+    /**
+     * Render the cartridge and encode it straight into the stream, which is neither flushed nor closed.
+     *
+     * @return the type it is encoded as
+     */
+    protected SignatureImageType renderSignatureImage(SignatureCartridgeRequest signatureCartridgeRequest, Integer width, Integer height, OutputStream signatureImageStream) throws PdfUtilException {
+        long layoutStart = System.nanoTime();
         Integer finalWidth = width != null ? width : signatureCartridgeRequest.getConfiguration().getNewWidth();
         Integer finalHeight = height != null ? height : signatureCartridgeRequest.getConfiguration().getNewHeight();
         try {
-            ByteArrayOutputStream signatureImageStream = new ByteArrayOutputStream();
-            ByteArrayResource resource;
             BufferedImage signatureImage = null;
             SignatureConfiguration configuration = null;
             try {
@@ -411,63 +783,66 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             } catch (IOException | FontFormatException e) {
                 throw new PdfUtilException("Unable to load signature configuration", e);
             }
+            CartridgeTemplate template = getCartridgeTemplate(signatureCartridgeRequest.getConfiguration(), configuration, finalWidth, finalHeight);
             SignatureFieldAppearance signatureFieldAppearance = configuration.getSignatureFieldAppearance();
             int cummulatedHeight = 0;
-            signatureImage = createImage(configuration.getBackgroundColor(), configuration.getTransparentColor(), finalWidth, finalHeight);
-            RenderingHints renderingHints = new RenderingHints(new HashMap<>());
-            renderingHints.put(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
-            renderingHints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            renderingHints.put(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_LCD_HRGB);
-            renderingHints.put(RenderingHints.KEY_COLOR_RENDERING, RenderingHints.VALUE_COLOR_RENDER_QUALITY);
-            renderingHints.put(RenderingHints.KEY_DITHERING, RenderingHints.VALUE_DITHER_ENABLE);
-            renderingHints.put(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-            renderingHints.put(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            renderingHints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-            renderingHints.put(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            signatureImage = template.newCanvas(imageBufferPool);
+            RenderingHints renderingHints = template.getRenderingHints();
 
             //----------------------------------------------------------------------------------------------------------
             TextRenderDetails sessionRenderDetails = null;
             if (signatureFieldAppearance.hasSession()) {
-                sessionRenderDetails = calcRenderDetails(
-                        configuration.getSessionLabel() + signatureCartridgeRequest.getSession(),
-                        configuration.getSessionFontType(),
-                        configuration.getBackgroundColor(),
-                        configuration.getTransparentColor(),
-                        configuration.getSessionColor() != null ? configuration.getSessionColor() : configuration.getForegroundColor(),
-                        finalWidth, finalHeight
-                );
+                sessionRenderDetails = template.getSessionLayer().fit(Arrays.asList(configuration.getSessionLabel() + signatureCartridgeRequest.getSession()), finalWidth, finalHeight);
+                if (sessionRenderDetails == null) {
+                    sessionRenderDetails = calcRenderDetails(
+                            configuration.getSessionLabel() + signatureCartridgeRequest.getSession(),
+                            configuration.getSessionFontType(),
+                            configuration.getBackgroundColor(),
+                            configuration.getTransparentColor(),
+                            configuration.getSessionColor() != null ? configuration.getSessionColor() : configuration.getForegroundColor(),
+                            finalWidth, finalHeight
+                    );
+                }
                 cummulatedHeight += sessionRenderDetails.getHeight();
             }
 
             //----------------------------------------------------------------------------------------------------------
             TextRenderDetails traceRenderDetails = null;
             if (signatureFieldAppearance.hasTrace()) {
-                traceRenderDetails = calcRenderDetails(
-                        signatureCartridgeRequest.getTrace(),
-                        configuration.getTraceFontType(),
-                        configuration.getBackgroundColor(),
-                        configuration.getTransparentColor(),
-                        configuration.getTraceColor() != null ? configuration.getTraceColor() : configuration.getForegroundColor(),
-                        finalWidth, finalHeight
-                );
+                traceRenderDetails = template.getTraceLayer().fit(signatureCartridgeRequest.getTrace(), finalWidth, finalHeight);
+                if (traceRenderDetails == null) {
+                    traceRenderDetails = calcRenderDetails(
+                            signatureCartridgeRequest.getTrace(),
+                            configuration.getTraceFontType(),
+                            configuration.getBackgroundColor(),
+                            configuration.getTransparentColor(),
+                            configuration.getTraceColor() != null ? configuration.getTraceColor() : configuration.getForegroundColor(),
+                            finalWidth, finalHeight
+                    );
+                }
                 cummulatedHeight += traceRenderDetails.getHeight();
             }
 
             //----------------------------------------------------------------------------------------------------------
             TextRenderDetails dateRenderDetails = null;
             if (signatureFieldAppearance.hasDate()) {
-                dateRenderDetails = calcRenderDetails(
-                        configuration.getDateLabel() + signatureCartridgeRequest.getDate(),
-                        configuration.getDateFontType(),
-                        configuration.getBackgroundColor(),
-                        configuration.getTransparentColor(),
-                        configuration.getDateColor() != null ? configuration.getDateColor() : configuration.getForegroundColor(),
-                        finalWidth, finalHeight
-                );
+                dateRenderDetails = template.getDateLayer().fit(Arrays.asList(configuration.getDateLabel() + signatureCartridgeRequest.getDate()), finalWidth, finalHeight);
+                if (dateRenderDetails == null) {
+                    dateRenderDetails = calcRenderDetails(
+                            configuration.getDateLabel() + signatureCartridgeRequest.getDate(),
+                            configuration.getDateFontType(),
+                            configuration.getBackgroundColor(),
+                            configuration.getTransparentColor(),
+                            configuration.getDateColor() != null ? configuration.getDateColor() : configuration.getForegroundColor(),
+                            finalWidth, finalHeight
+                    );
+                }
                 cummulatedHeight += dateRenderDetails.getHeight();
             }
 
             //----------------------------------------------------------------------------------------------------------
+            long rasterStart = System.nanoTime();
+            metrics.phase(PdfUtilMetrics.PHASE_CARTRIDGE_LAYOUT, rasterStart - layoutStart);
             BufferedImage bufferedImageSignature = null;
             boolean bufferedImageSignatureNeedsCorrection = true;
             Integer signatureHeight = 0;
@@ -478,18 +853,21 @@ public class PdfUtilServiceImpl implements PdfUtilService {
                         : finalHeight;
                 if (signatureCartridgeRequest.getSignature() instanceof String) {
                     TextRenderDetails signatureRenderDetails = null;
-                    signatureRenderDetails = calcRenderDetails(
-                            (String) signatureCartridgeRequest.getSignature(),
-                            configuration.getSignatureFontType(),
-                            configuration.getBackgroundColor(),
-                            configuration.getTransparentColor(),
-                            configuration.getSignatureColor() != null ? configuration.getSignatureColor() : configuration.getForegroundColor(),
-                            finalWidth, signatureHeight
-                    );
+                    signatureRenderDetails = template.getSignatureLayer().fit(Arrays.asList((String) signatureCartridgeRequest.getSignature()), finalWidth, signatureHeight);
+                    if (signatureRenderDetails == null) {
+                        signatureRenderDetails = calcRenderDetails(
+                                (String) signatureCartridgeRequest.getSignature(),
+                                configuration.getSignatureFontType(),
+                                configuration.getBackgroundColor(),
+                                configuration.getTransparentColor(),
+                                configuration.getSignatureColor() != null ? configuration.getSignatureColor() : configuration.getForegroundColor(),
+                                finalWidth, signatureHeight
+                        );
+                    }
                     int dx = finalWidth > signatureRenderDetails.getWidth() ? (finalWidth - signatureRenderDetails.getWidth()) / 2 : 0;
                     int dy = signatureHeight > signatureRenderDetails.getHeight() ? (signatureHeight - signatureRenderDetails.getHeight()) / 2 : 0;
 
-                    bufferedImageSignature = createImage(configuration.getBackgroundColor(), configuration.getTransparentColor(), finalWidth, finalHeight);
+                    bufferedImageSignature = template.newCanvas(imageBufferPool);
                     writeImage(bufferedImageSignature, (String) signatureCartridgeRequest.getSignature(), dx, dy, signatureRenderDetails, renderingHints);
 
                     bufferedImageSignatureNeedsCorrection = false;
@@ -524,18 +902,26 @@ public class PdfUtilServiceImpl implements PdfUtilService {
                     throw new PdfUtilException("Unsupported signature content request signature type");
                 } else {
                     if (bufferedImageSignatureNeedsCorrection) {
-                        bufferedImageSignature = getCroppedImage(bufferedImageSignature, configuration.getBackgroundColor(), 5);
-                        bufferedImageSignature = scaleImage(bufferedImageSignature, finalWidth, signatureHeight);
+                        // the decoded upload is not pooled, release ignores it
+                        BufferedImage croppedSignature = getCroppedImage(bufferedImageSignature, configuration.getBackgroundColor(), 5, imageBufferPool);
+                        bufferedImageSignature = scaleImage(croppedSignature, finalWidth, signatureHeight, scalingStrategy, imageBufferPool);
+                        if (bufferedImageSignature != croppedSignature) {
+                            imageBufferPool.release(croppedSignature);
+                        }
 
                         int dx = finalWidth > bufferedImageSignature.getWidth() ? (finalWidth - bufferedImageSignature.getWidth()) / 2 : 0;
                         int dy = signatureHeight > bufferedImageSignature.getHeight() ? (signatureHeight - bufferedImageSignature.getHeight()) / 2 : 0;
 
-                        BufferedImage baseSignature = createImage(configuration.getBackgroundColor(), configuration.getTransparentColor(), finalWidth, signatureHeight);
+                        BufferedImage baseSignature = template.newCanvas(imageBufferPool, signatureHeight);
                         overlayImage(baseSignature, bufferedImageSignature, dx, dy);
+                        imageBufferPool.release(bufferedImageSignature);
                         bufferedImageSignature = baseSignature;
 
                         if (finalWidth != null || finalHeight != null) {
-                            bufferedImageSignature = scaleImage(bufferedImageSignature, finalWidth, signatureHeight);
+                            bufferedImageSignature = scaleImage(bufferedImageSignature, finalWidth, signatureHeight, scalingStrategy, imageBufferPool);
+                            if (bufferedImageSignature != baseSignature) {
+                                imageBufferPool.release(baseSignature);
+                            }
                         }
 
                     }
@@ -574,42 +960,38 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             }
 
             if (configuration.getSignatureFieldAppearance().hasBorder()) {
-                Graphics2D graphics2D = signatureImage.createGraphics();
-                Stroke stroke = new BasicStroke(2f, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_ROUND);
-                graphics2D.setColor(configuration.getBorderColor());
-                graphics2D.setStroke(stroke);
-                int circle = 7;
-                int top = sessionRenderDetails.getHeight() / 2;
-                int left = 10;
-                graphics2D.drawOval(configuration.getSessionFontType().getLeft() - 2 * circle - 1, top - circle / 2, circle, circle);
-                graphics2D.drawLine(configuration.getSessionFontType().getLeft() - 2 * circle, top, left, top);
-                graphics2D.drawLine(left, top, left, sessionRenderDetails.getHeight() + signatureHeight - circle);
-                graphics2D.drawLine(left, sessionRenderDetails.getHeight() + signatureHeight - circle, finalWidth - circle, sessionRenderDetails.getHeight() + signatureHeight - circle);
-                graphics2D.drawOval(finalWidth - circle, sessionRenderDetails.getHeight() + signatureHeight - circle - circle / 2, circle, circle);
-                graphics2D.dispose();
+                template.drawBorder(signatureImage, sessionRenderDetails.getHeight(), signatureHeight);
             }
 
             overlayImage(signatureImage, bufferedImageSignature, 0, 0 + (sessionRenderDetails != null ? sessionRenderDetails.getHeight() : 0));
+            // only canvases taken from the pool go back to it
+            imageBufferPool.release(bufferedImageSignature);
 
+            long encodeStart = System.nanoTime();
+            metrics.phase(PdfUtilMetrics.PHASE_CARTRIDGE_RASTER, encodeStart - rasterStart);
             try {
-                ImageIO.write(signatureImage, configuration.getImageType().name(), signatureImageStream);
+                imageEncoders.encode(configuration.getImageType(), signatureImage, signatureImageStream);
+                metrics.phase(PdfUtilMetrics.PHASE_CARTRIDGE_ENCODE, System.nanoTime() - encodeStart);
             } catch (IOException e) {
                 throw new PdfUtilException("Unable to write signature file into an image stream", e);
+            } finally {
+                imageBufferPool.release(signatureImage);
             }
-            SignatureConfiguration finalConfiguration = configuration;
-            resource = new ByteArrayResource(signatureImageStream.toByteArray()) {
-                @Override
-                public String getFilename() {
-                    return signatureCartridgeRequest.getSession() + "." + finalConfiguration.getImageType().name();
-                }
-            };
-
-            String contentType = URLConnection.guessContentTypeFromName(resource.getFilename());
-            signatureCartridgeResponse = SignatureCartridgeResponse.builder().resource(resource).contentType(contentType).build();
+            return configuration.getImageType();
 
         } finally {
         }
-        return signatureCartridgeResponse;
+    }
+
+    private SignatureCartridgeResponse createSignatureCartridgeResponse(SignatureCartridgeRequest signatureCartridgeRequest, SignatureImageType imageType, byte[] content) {
+        ByteArrayResource resource = new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return signatureCartridgeRequest.getSession() + "." + imageType.name();
+            }
+        };
+        String contentType = URLConnection.guessContentTypeFromName(resource.getFilename());
+        return SignatureCartridgeResponse.builder().resource(resource).contentType(contentType).build();
     }
 
     public SignatureCartridgeResponse createSignatureImageOld(SignatureCartridgeRequest signatureCartridgeRequest, Integer width, Integer height) throws PdfUtilException {
@@ -741,7 +1123,7 @@ public class PdfUtilServiceImpl implements PdfUtilService {
 
                     //cred ca trebuie sa fie signatureHeight
                     if (finalWidth != null || finalHeight != null) {
-                        bufferedImageSignature = scaleImage(bufferedImageSignature, finalWidth, finalHeight);
+                        bufferedImageSignature = scaleImage(bufferedImageSignature, finalWidth, finalHeight, scalingStrategy);
                     }
                 }
             }
@@ -806,7 +1188,7 @@ public class PdfUtilServiceImpl implements PdfUtilService {
                 graphics2D.drawOval(signatureCartridgeWidth - circle, bufferedImageSession.getHeight() + signatureHeight - circle - 3, circle, circle);
                 graphics2D.dispose();
                 if (configuration.getTransparentColor() != null) {
-                    bufferedImageBorder = makeTransparent(bufferedImageBorder, configuration.getTransparentColor());
+                    bufferedImageBorder = makeTransparentInPlace(bufferedImageBorder, configuration.getTransparentColor());
                 }
                 bufferedImageList.add(bufferedImageBorder);
             }
@@ -823,11 +1205,11 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             //signatureImage = scaleImage(signatureImage, configuration.getNewWidth(), configuration.getNewHeight());
 
             if (configuration.getTransparentColor() != null) {
-                signatureImage = makeTransparent(signatureImage, configuration.getTransparentColor());
+                signatureImage = makeTransparentInPlace(signatureImage, configuration.getTransparentColor());
             }
 
             try {
-                ImageIO.write(signatureImage, configuration.getImageType().name(), signatureImageStream);
+                imageEncoders.encode(configuration.getImageType(), signatureImage, signatureImageStream);
             } catch (IOException e) {
                 throw new PdfUtilException("Unable to write signature file into an image stream", e);
             }
@@ -863,28 +1245,23 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             }
         }
         if (transparentColor != null) {
-            bufferedImage = makeTransparent(bufferedImage, transparentColor);
+            bufferedImage = makeTransparentInPlace(bufferedImage, transparentColor);
         }
         return bufferedImage;
     }
 
     public BufferedImage makeTransparent(final BufferedImage image, final Color transparentColor) {
-        final ImageFilter filter = new RGBImageFilter() {
-            // the color we are looking for (white)... Alpha bits are set to opaque
-            public int markerRGB = transparentColor.getRGB() | 0xFFFFFFFF;
-
-            public final int filterRGB(final int x, final int y, final int rgb) {
-                if ((rgb | 0xFF000000) == markerRGB) {
-                    // Mark the alpha bits as zero - transparent
-                    return 0x00FFFFFF & rgb;
-                } else {
-                    // nothing to do
-                    return rgb;
-                }
-            }
-        };
-        final ImageProducer ip = new FilteredImageSource(image.getSource(), filter);
-        return toBufferedImage(Toolkit.getDefaultToolkit().createImage(ip));
+        // the color we are looking for (white)... Alpha bits are set to opaque
+        int markerRGB = transparentColor.getRGB() | 0xFFFFFFFF;
+        return TransparencyFilter.applyToCopy(image, markerRGB);
+    }
+
+    /**
+     * {@link #makeTransparent} for an image created by the caller, which ARGB images are filtered in place.
+     */
+    private BufferedImage makeTransparentInPlace(final BufferedImage image, final Color transparentColor) {
+        int markerRGB = transparentColor.getRGB() | 0xFFFFFFFF;
+        return TransparencyFilter.apply(image, markerRGB);
     }
 
     public TextRenderDetails calcRenderDetails(
@@ -904,34 +1281,16 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             Integer maxWidth, Integer maxHeight
     ) {
         TextRenderDetails textRenderDetails = new TextRenderDetails();
-        BufferedImage helperImage = new BufferedImage(1, 1, IMAGE_TYPE);
-        Graphics2D graphics2D = helperImage.createGraphics();
-        Font font;
-        FontMetrics fontMetrics;
-        float size = fontType.getSize();
-        int width;
-        int height;
-        do {
-            font = getFont(fontType.getName(), fontType.getStyle(), size);
-            graphics2D.setFont(font);
-            fontMetrics = graphics2D.getFontMetrics();
-            width = 0;
-            height = (fontMetrics.getHeight() + fontType.getTop() + fontType.getBottom()) * lines.size();
-            for (String line : lines) {
-                int lineWidth = fontMetrics.stringWidth(line + " ") + fontType.getLeft() + fontType.getRight();
-                if (lineWidth > width) {
-                    width = lineWidth;
-                }
-            }
-            size--;
-        } while (((maxWidth != null && width > maxWidth) || (maxHeight != null && height > maxHeight)) && size > 0);
-        graphics2D.dispose();
+        FontFitter.Fit fit = fontFitter.fit(lines, fontType.getName(), fontType.getStyle(), fontType.getSize(), 0,
+                                            fontType.getLeft(), fontType.getRight(), fontType.getTop(), fontType.getBottom(),
+                                            maxWidth, maxHeight
+        );
 
-        int newWidth = width;
-        int newHeight = height;
+        int newWidth = fit.getWidth();
+        int newHeight = fit.getHeight();
 
         FontType fontTypeReturn = new FontType(fontType);
-        fontTypeReturn.setSize(++size);
+        fontTypeReturn.setSize(fit.getSize());
         textRenderDetails.setFontType(fontTypeReturn);
         textRenderDetails.setWidth(newWidth);
         textRenderDetails.setHeight(newHeight);
@@ -976,28 +1335,14 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             Integer maxWidth, Integer maxHeight,
             Integer minWidth, Integer minHeight
     ) {
-        BufferedImage helperImage = new BufferedImage(1, 1, IMAGE_TYPE);
-        Graphics2D graphics2D = helperImage.createGraphics();
-        Font font;
+        FontFitter.Fit fit = fontFitter.fit(lines, fontType.getName(), fontType.getStyle(), fontType.getSize(), 4,
+                                            left, right, top, bottom,
+                                            maxWidth, maxHeight
+        );
+        Font font = fit.getFont();
         FontMetrics fontMetrics;
-        float size = fontType.getSize();
-        int width;
-        int height;
-        do {
-            font = getFont(fontType.getName(), fontType.getStyle(), size);
-            graphics2D.setFont(font);
-            fontMetrics = graphics2D.getFontMetrics();
-            width = 0;
-            height = (fontMetrics.getHeight() + top + bottom) * lines.size();
-            for (String line : lines) {
-                int lineWidth = fontMetrics.stringWidth(line + " ") + left + right;
-                if (lineWidth > width) {
-                    width = lineWidth;
-                }
-            }
-            size--;
-        } while (((maxWidth != null && width > maxWidth) || (maxHeight != null && height > maxHeight)) && size > 4);
-        graphics2D.dispose();
+        int width = fit.getWidth();
+        int height = fit.getHeight();
 
         int newWidth = minWidth != null ? Math.max(minWidth, width) : width;
         int newHeight = minHeight != null ? Math.max(minHeight, height) : height;
@@ -1005,7 +1350,7 @@ public class PdfUtilServiceImpl implements PdfUtilService {
         newHeight = maxHeight != null ? Math.max(maxHeight, height) : height;
 
         BufferedImage finalImg = new BufferedImage(newWidth, newHeight, IMAGE_TYPE);
-        graphics2D = finalImg.createGraphics();
+        Graphics2D graphics2D = finalImg.createGraphics();
         if (backgroundColor != null) {
             if (transparentColor == null || !transparentColor.equals(backgroundColor)) {
                 graphics2D.setColor(backgroundColor);
@@ -1032,10 +1377,10 @@ public class PdfUtilServiceImpl implements PdfUtilService {
         graphics2D.dispose();
         int scaledWidth = maxWidth != null ? maxWidth : newWidth;
         int scaledHeight = maxHeight != null ? maxHeight : newHeight;
-        finalImg = scaleImage(finalImg, scaledWidth, scaledHeight);
+        finalImg = scaleImage(finalImg, scaledWidth, scaledHeight, scalingStrategy);
 
         if (transparentColor != null) {
-            finalImg = makeTransparent(finalImg, transparentColor);
+            finalImg = makeTransparentInPlace(finalImg, transparentColor);
         }
         return finalImg;
     }
@@ -1046,10 +1391,7 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             Integer maxWidth, Integer maxHeight,
             Integer minWidth, Integer minHeight
     ) {
-        BufferedImage helperImage = new BufferedImage(1, 1, IMAGE_TYPE);
-        Graphics2D graphics2D = helperImage.createGraphics();
-        graphics2D.setFont(font);
-        FontMetrics fontMetrics = graphics2D.getFontMetrics();
+        FontMetrics fontMetrics = FontFitter.getFontMetrics(font);
         int width = 0;
         for (String line : lines) {
             int lineWidth = fontMetrics.stringWidth(line + " ") + left + right;
@@ -1058,7 +1400,6 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             }
         }
         int height = (fontMetrics.getHeight() + top + bottom) * lines.size();
-        graphics2D.dispose();
 
         int newWidth = minWidth != null ? Math.max(minWidth, width) : width;
         int newHeight = minHeight != null ? Math.max(minHeight, height) : height;
@@ -1067,7 +1408,7 @@ public class PdfUtilServiceImpl implements PdfUtilService {
 
 
         BufferedImage finalImg = new BufferedImage(newWidth, newHeight, IMAGE_TYPE);
-        graphics2D = finalImg.createGraphics();
+        Graphics2D graphics2D = finalImg.createGraphics();
         if (backgroundColor != null) {
             if (transparentColor == null || !transparentColor.equals(backgroundColor)) {
                 graphics2D.setColor(backgroundColor);
@@ -1094,9 +1435,9 @@ public class PdfUtilServiceImpl implements PdfUtilService {
         graphics2D.dispose();
         int scaledWidth = maxWidth != null ? maxWidth : newWidth;
         int scaledHeight = maxHeight != null ? maxHeight : newHeight;
-        finalImg = scaleImage(finalImg, scaledWidth, scaledHeight);
+        finalImg = scaleImage(finalImg, scaledWidth, scaledHeight, scalingStrategy);
         if (transparentColor != null) {
-            finalImg = makeTransparent(finalImg, transparentColor);
+            finalImg = makeTransparentInPlace(finalImg, transparentColor);
         }
         return finalImg;
     }
@@ -1116,7 +1457,7 @@ public class PdfUtilServiceImpl implements PdfUtilService {
         graphics2D.dispose();
 
         if (transparentColor != null) {
-            finalImage = makeTransparent(finalImage, transparentColor);
+            finalImage = makeTransparentInPlace(finalImage, transparentColor);
         }
         return finalImage;
     }
@@ -1207,6 +1548,18 @@ public class PdfUtilServiceImpl implements PdfUtilService {
     }
 
     public static BufferedImage scaleImage(BufferedImage image, Integer width, Integer height) {
+        return scaleImage(image, width, height, ImageScaler.Strategy.AUTO);
+    }
+
+    public static BufferedImage scaleImage(BufferedImage image, Integer width, Integer height, ImageScaler.Strategy strategy) {
+        return scaleImage(image, width, height, strategy, null);
+    }
+
+    /**
+     * @param imageBufferPool pool the scaled image is taken from, {@code null} for a plain image; the image
+     *                        itself is returned when it already has the size
+     */
+    public static BufferedImage scaleImage(BufferedImage image, Integer width, Integer height, ImageScaler.Strategy strategy, ImageBufferPool imageBufferPool) {
         int newHeight = height != null ? height : Integer.MAX_VALUE;
         int newWidth = width != null ? width : Integer.MAX_VALUE;
         if ((width == null && height == null) || (image.getHeight() == newHeight && image.getWidth() == newWidth)) {
@@ -1225,13 +1578,7 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             newWidth = (int) (newHeight * aspectRatio);
         }
 
-        // Draw the scaled image
-        BufferedImage newImage = new BufferedImage(newWidth, newHeight, IMAGE_TYPE);
-        Graphics2D graphics2D = newImage.createGraphics();
-        graphics2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        graphics2D.drawImage(image, 0, 0, newWidth, newHeight, null);
-
-        return newImage;
+        return ImageScaler.scale(image, newWidth, newHeight, strategy, imageBufferPool);
     }
 
 
@@ -1254,6 +1601,14 @@ public class PdfUtilServiceImpl implements PdfUtilService {
 
 
     public BufferedImage getCroppedImage(BufferedImage bufferedImage, Color backgroundColor, double tolerance) {
+        return getCroppedImage(bufferedImage, backgroundColor, tolerance, null);
+    }
+
+    /**
+     * @param imageBufferPool pool the cropped image is taken from, {@code null} for a plain image; the image
+     *                        itself is returned when it is nothing but background
+     */
+    public BufferedImage getCroppedImage(BufferedImage bufferedImage, Color backgroundColor, double tolerance, ImageBufferPool imageBufferPool) {
         // Get our top-left pixel color as our "baseline" for cropping
 
         int baseColor = bufferedImage.getRGB(0, 0);
@@ -1261,55 +1616,30 @@ public class PdfUtilServiceImpl implements PdfUtilService {
             baseColor = backgroundColor.getRGB();
         }
 
-        int width = bufferedImage.getWidth();
-        int height = bufferedImage.getHeight();
-
-        int topY = Integer.MAX_VALUE, topX = Integer.MAX_VALUE;
-        int bottomY = -1, bottomX = -1;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (colorWithinTolerance(baseColor, bufferedImage.getRGB(x, y), tolerance)) {
-                    if (x < topX) topX = x;
-                    if (y < topY) topY = y;
-                    if (x > bottomX) bottomX = x;
-                    if (y > bottomY) bottomY = y;
-                }
-            }
+        java.awt.Rectangle bounds = ContentBounds.find(bufferedImage, baseColor, tolerance);
+        if (bounds == null) {
+            // nothing but background, nothing to crop to
+            return bufferedImage;
         }
+        int topX = bounds.x;
+        int topY = bounds.y;
+        int bottomX = bounds.x + bounds.width - 1;
+        int bottomY = bounds.y + bounds.height - 1;
 
-        BufferedImage finalImage = new BufferedImage((bottomX - topX + 1), (bottomY - topY + 1), IMAGE_TYPE);
+        BufferedImage finalImage = imageBufferPool != null
+                ? imageBufferPool.acquire(bottomX - topX + 1, bottomY - topY + 1)
+                : new BufferedImage((bottomX - topX + 1), (bottomY - topY + 1), IMAGE_TYPE);
 
-        finalImage.getGraphics().drawImage(bufferedImage, 0, 0,
-                                           finalImage.getWidth(), finalImage.getHeight(),
-                                           topX, topY, bottomX, bottomY, null
+        Graphics2D graphics2D = finalImage.createGraphics();
+        graphics2D.drawImage(bufferedImage, 0, 0,
+                             finalImage.getWidth(), finalImage.getHeight(),
+                             topX, topY, bottomX, bottomY, null
         );
+        graphics2D.dispose();
 
         return finalImage;
     }
 
-    private boolean colorWithinTolerance(int a, int b, double tolerance) {
-        int aAlpha = (int) ((a & 0xFF000000) >>> 24);   // Alpha level
-        int aRed = (int) ((a & 0x00FF0000) >>> 16);   // Red level
-        int aGreen = (int) ((a & 0x0000FF00) >>> 8);    // Green level
-        int aBlue = (int) (a & 0x000000FF);            // Blue level
-
-        int bAlpha = (int) ((b & 0xFF000000) >>> 24);   // Alpha level
-        int bRed = (int) ((b & 0x00FF0000) >>> 16);   // Red level
-        int bGreen = (int) ((b & 0x0000FF00) >>> 8);    // Green level
-        int bBlue = (int) (b & 0x000000FF);            // Blue level
-
-        double distance = Math.sqrt((aAlpha - bAlpha) * (aAlpha - bAlpha) +
-                                            (aRed - bRed) * (aRed - bRed) +
-                                            (aGreen - bGreen) * (aGreen - bGreen) +
-                                            (aBlue - bBlue) * (aBlue - bBlue));
-
-        // 510.0 is the maximum distance between two colors
-        // (0,0,0,0 -> 255,255,255,255)
-        double percentAway = distance / 510.0d * 100;
-
-        return (percentAway > tolerance);
-    }
-
     public Font createFont(FontType fontType) {
         if (fontType == null) {
             return null;
@@ -1318,33 +1648,7 @@ public class PdfUtilServiceImpl implements PdfUtilService {
     }
 
     public Font getFont(String name, Integer style, Float size) {
-        String key = name + "-" + String.valueOf(style) + String.valueOf(size);
-        if (fontMap.containsKey(key)) {
-            return fontMap.get(key);
-        }
-        String fontFilePathName = "/dss/fonts/" + name + (name.toLowerCase().endsWith(".ttf") ? "" : ".ttf");
-        InputStream is = PdfUtilServiceImpl.class.getResourceAsStream(fontFilePathName);
-        Font fontDefault = null;
-        try {
-            fontDefault = Font.createFont(Font.TRUETYPE_FONT, is);
-        } catch (FontFormatException | IOException e) {
-            throw new PdfUtilRuntimeException("Exception loading font " + name, e);
-        }
-
-        Font fontSpecific = fontDefault;
-        if (size != null && style != null) {
-            fontSpecific = fontDefault.deriveFont(style, size);
-        }
-        if (size != null && style == null) {
-            fontSpecific = fontDefault.deriveFont(size);
-        }
-        if (size == null && style != null) {
-            fontSpecific = fontDefault.deriveFont(style);
-        }
-        if (fontSpecific != null) {
-            fontMap.put(key, fontSpecific);
-        }
-        return fontSpecific;
+        return fontCache.getFont(name, style, size);
     }
 
 
@@ -1356,9 +1660,10 @@ public class PdfUtilServiceImpl implements PdfUtilService {
     }
 
     public SignatureConfiguration getSignatureConfiguration(SignatureConfigurationRequest signatureConfigurationRequest) throws IOException, FontFormatException {
-        if (signatureConfigurationMap.containsKey(signatureConfigurationRequest)) {
-            return signatureConfigurationMap.get(signatureConfigurationRequest);
-        }
+        return configurationCache.get(signatureConfigurationRequest, this::createSignatureConfiguration);
+    }
+
+    protected SignatureConfiguration createSignatureConfiguration(SignatureConfigurationRequest signatureConfigurationRequest) {
         SignatureConfiguration signatureConfiguration = SignatureConfiguration.builder()
                 .mode(signatureConfigurationRequest.getMode())
                 .signatureFieldAppearance(signatureConfigurationRequest.getSignatureFieldAppearance())
@@ -1384,10 +1689,32 @@ public class PdfUtilServiceImpl implements PdfUtilService {
                 .newHeight(signatureConfigurationRequest.getNewHeight())
                 .imageType(signatureConfigurationRequest.getImageType())
                 .build();
-        signatureConfigurationMap.put(signatureConfigurationRequest, signatureConfiguration);
         return signatureConfiguration;
     }
 
+    /**
+     * The prerendered layers of a cartridge of the given configuration and size, shared by every signer.
+     */
+    public CartridgeTemplate getCartridgeTemplate(SignatureConfigurationRequest signatureConfigurationRequest, SignatureConfiguration configuration, int width, int height) {
+        if (cartridgeTemplateCache == null) {
+            return compileCartridgeTemplate(configuration, width, height);
+        }
+        return cartridgeTemplateCache.get(
+                new CartridgeTemplate.Key(signatureConfigurationRequest, width, height),
+                key -> compileCartridgeTemplate(configuration, width, height)
+        );
+    }
+
+    protected CartridgeTemplate compileCartridgeTemplate(SignatureConfiguration configuration, int width, int height) {
+        return CartridgeTemplate.compile(configuration, width, height,
+                                         createImage(configuration.getBackgroundColor(), configuration.getTransparentColor(), width, height)
+        );
+    }
+
+    public PdfTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
     @Override
     public SignatureCartridgeRenderer createRenderer(SignatureCartridgeRequest signatureCartridgeRequest) {
         return new SignatureCartridgeRendererImpl(this, signatureCartridgeRequest);
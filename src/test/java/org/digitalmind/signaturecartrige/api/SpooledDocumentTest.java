@@ -0,0 +1,71 @@
+package org.digitalmind.signaturecartrige.api;
+
+import org.digitalmind.signaturecartrige.exception.PdfContentTooLargeException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SpooledDocumentTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void smallDocumentStaysInMemory() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (SpooledDocument document = SpooledDocument.spool(new ByteArrayInputStream(new byte[100]), 1024, 0, directory)) {
+            assertFalse(document.isFile());
+            assertNull(document.getPath());
+            assertEquals(100, document.length());
+        }
+        assertEquals(0, spooledFiles());
+    }
+
+    @Test
+    public void largeDocumentIsSpooledAndDeleted() throws IOException {
+        byte[] content = new byte[100_000];
+        content[99_999] = 7;
+        SpooledDocument document = SpooledDocument.spool(new ByteArrayInputStream(content), 1024, 0, folder.getRoot().toPath());
+        assertTrue(document.isFile());
+        assertArrayEquals(content, Files.readAllBytes(document.getPath()));
+        document.close();
+        assertFalse(Files.exists(document.getPath()));
+        // closed again when the request completes
+        document.close();
+    }
+
+    @Test
+    public void tooLargeDocumentIsRejectedAndDeleted() throws IOException {
+        try {
+            SpooledDocument.spool(new ByteArrayInputStream(new byte[100_000]), 1024, 50_000, folder.getRoot().toPath());
+            fail("PdfContentTooLargeException expected");
+        } catch (PdfContentTooLargeException e) {
+            assertEquals("The document is larger than 50000 bytes", e.getMessage());
+        }
+        assertEquals(0, spooledFiles());
+    }
+
+    @Test(expected = PdfContentTooLargeException.class)
+    public void tooLargeInMemoryDocumentIsRejected() throws IOException {
+        SpooledDocument.spool(new ByteArrayInputStream(new byte[2_000]), 4096, 1_000, folder.getRoot().toPath());
+    }
+
+    private int spooledFiles() {
+        File[] files = folder.getRoot().listFiles();
+        return files != null ? files.length : 0;
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.digitalmind.signaturecartrige.image;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Scaling into pooled images, which may hold the pixels of a previous image, gives the same pixels as scaling
+ * into new images.
+ */
+public class ImageScalerTest {
+
+    @Test
+    public void pooledMatchesUnpooled() {
+        BufferedImage image = randomImage(640, 360, 1);
+        int[][] sizes = {{500, 280}, {200, 110}, {60, 30}, {12, 7}, {900, 500}};
+        for (ImageScaler.Strategy strategy : ImageScaler.Strategy.values()) {
+            for (int[] size : sizes) {
+                ImageBufferPool imageBufferPool = dirtyPool();
+                BufferedImage expected = ImageScaler.scale(image, size[0], size[1], strategy);
+                BufferedImage actual = ImageScaler.scale(image, size[0], size[1], strategy, imageBufferPool);
+                assertEquals(strategy + " " + Arrays.toString(size), size[0], actual.getWidth());
+                assertArrayEquals(strategy + " " + Arrays.toString(size), pixels(expected), pixels(actual));
+            }
+        }
+    }
+
+    @Test
+    public void intermediatesGoBackToPool() {
+        ImageBufferPool imageBufferPool = new ImageBufferPool(1 << 24);
+        BufferedImage image = imageBufferPool.acquire(800, 800);
+        int[] before = pixels(image);
+        ImageScaler.scale(image, 90, 90, ImageScaler.Strategy.PROGRESSIVE, imageBufferPool);
+        // the halvings to 400, 200 and 100 are released, the source is not
+        assertEquals(4L * ((1 << 18) + (1 << 16) + (1 << 14)), imageBufferPool.getRetainedBytes());
+        assertArrayEquals(before, pixels(image));
+    }
+
+    private static ImageBufferPool dirtyPool() {
+        ImageBufferPool imageBufferPool = new ImageBufferPool(1 << 24);
+        BufferedImage[] images = new BufferedImage[8];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = imageBufferPool.acquire(1 << i + 3, 1 << i + 2);
+            Arrays.fill(((DataBufferInt) images[i].getRaster().getDataBuffer()).getData(), 0x7F3366CC);
+        }
+        for (BufferedImage image : images) {
+            imageBufferPool.release(image);
+        }
+        return imageBufferPool;
+    }
+
+    private static BufferedImage randomImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(4) == 0 ? 0 : 0xFF000000 | random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.digitalmind.signaturecartrige.image;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * {@link PngEncoder} output decoded by {@code ImageIO} holds the pixels of the encoded image, and of the
+ * {@code ImageIO} PNG writer output.
+ */
+public class PngEncoderTest {
+
+    @Test
+    public void argbRoundTrip() throws IOException {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_ARGB, 301, 97, 1);
+        for (PngEncoder.Filter filter : PngEncoder.Filter.values()) {
+            assertSamePixels(filter.name(), image, decode(new PngEncoder(6, filter), image));
+        }
+    }
+
+    @Test
+    public void rgbRoundTrip() throws IOException {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_RGB, 123, 45, 2);
+        for (PngEncoder.Filter filter : PngEncoder.Filter.values()) {
+            BufferedImage decoded = decode(new PngEncoder(6, filter), image);
+            assertFalse(decoded.getColorModel().hasAlpha());
+            assertSamePixels(filter.name(), image, decoded);
+        }
+    }
+
+    @Test
+    public void byteImageRoundTrip() throws IOException {
+        BufferedImage image = randomImage(BufferedImage.TYPE_4BYTE_ABGR, 64, 33, 3);
+        assertSamePixels("4BYTE_ABGR", image, decode(new PngEncoder(9, PngEncoder.Filter.ADAPTIVE), image));
+    }
+
+    @Test
+    public void matchesImageIoWriter() throws IOException {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_ARGB, 200, 80, 4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        BufferedImage expected = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        for (int level = 0; level <= 9; level += 3) {
+            assertSamePixels("level " + level, expected, decode(new PngEncoder(level, PngEncoder.Filter.NONE), image));
+        }
+    }
+
+    @Test
+    public void encodesAfterShutdown() throws IOException {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_ARGB, 40, 30, 5);
+        PngEncoder encoder = new PngEncoder(6, PngEncoder.Filter.PAETH);
+        assertSamePixels("before", image, decode(encoder, image));
+        encoder.shutdown();
+        assertSamePixels("after", image, decode(encoder, image));
+    }
+
+    private static BufferedImage decode(PngEncoder encoder, BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(image, out);
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static BufferedImage randomImage(int type, int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // runs of the same color, so every filter gets rows worth predicting
+                int rgb = random.nextInt(3) == 0 ? random.nextInt() : x / 7 * 0x010305 + y * 0x020100;
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+
+    private static void assertSamePixels(String message, BufferedImage expected, BufferedImage actual) {
+        assertEquals(message, expected.getWidth(), actual.getWidth());
+        assertEquals(message, expected.getHeight(), actual.getHeight());
+        assertArrayEquals(message, pixels(expected), pixels(actual));
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.digitalmind.signaturecartrige.image;
+
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pixel comparison of {@link TransparencyFilter} with the {@code RGBImageFilter}/{@code Toolkit} round trip it
+ * replaces.
+ */
+public class TransparencyFilterTest {
+
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @Test
+    public void argbMatchesImageFilter() {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_ARGB, 257, 131, 1);
+        assertSamePixels(imageFilter(image, WHITE), TransparencyFilter.applyToCopy(image, WHITE));
+    }
+
+    @Test
+    public void rgbMatchesImageFilter() {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_RGB, 200, 90, 2);
+        assertSamePixels(imageFilter(image, WHITE), TransparencyFilter.apply(image, WHITE));
+    }
+
+    @Test
+    public void byteImageMatchesImageFilter() {
+        BufferedImage image = randomImage(BufferedImage.TYPE_4BYTE_ABGR, 120, 75, 3);
+        assertSamePixels(imageFilter(image, WHITE), TransparencyFilter.apply(image, WHITE));
+    }
+
+    @Test
+    public void largeImageMatchesImageFilter() {
+        // filtered in row chunks on several threads
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_ARGB, 1100, 1000, 4);
+        assertSamePixels(imageFilter(image, WHITE), TransparencyFilter.applyToCopy(image, WHITE));
+    }
+
+    @Test
+    public void otherMarkerMatchesImageFilter() {
+        int marker = 0xFF10A0C0;
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_ARGB, 64, 64, 5);
+        image.setRGB(3, 3, marker);
+        image.setRGB(4, 3, marker & 0x80FFFFFF);
+        assertSamePixels(imageFilter(image, marker), TransparencyFilter.applyToCopy(image, marker));
+    }
+
+    @Test
+    public void applyToCopyKeepsImage() {
+        BufferedImage image = randomImage(BufferedImage.TYPE_INT_ARGB, 50, 40, 6);
+        int[] before = pixels(image);
+        TransparencyFilter.applyToCopy(image, WHITE);
+        assertArrayEquals(before, pixels(image));
+    }
+
+    /**
+     * The former filter: the marker pixels lose their alpha, then the image is drawn onto an empty ARGB image.
+     */
+    private static BufferedImage imageFilter(BufferedImage image, int markerRgb) {
+        ImageFilter filter = new RGBImageFilter() {
+            @Override
+            public int filterRGB(int x, int y, int rgb) {
+                return (rgb | 0xFF000000) == markerRgb ? 0x00FFFFFF & rgb : rgb;
+            }
+        };
+        Image filtered = Toolkit.getDefaultToolkit().createImage(new FilteredImageSource(image.getSource(), filter));
+        BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics2D = result.createGraphics();
+        graphics2D.drawImage(filtered, 0, 0, null);
+        graphics2D.dispose();
+        return result;
+    }
+
+    /**
+     * Random colors with every kind of alpha, and a share of white pixels, opaque and translucent.
+     */
+    private static BufferedImage randomImage(int type, int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int alpha;
+                switch (random.nextInt(4)) {
+                    case 0:
+                        alpha = 0;
+                        break;
+                    case 1:
+                        alpha = 1 + random.nextInt(254);
+                        break;
+                    default:
+                        alpha = 0xFF;
+                }
+                int rgb = random.nextInt(3) == 0 ? 0xFFFFFF : random.nextInt(0x1000000);
+                image.setRGB(x, y, alpha << 24 | rgb);
+            }
+        }
+        return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertArrayEquals(pixels(expected), pixels(actual));
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.digitalmind.signaturecartrige.pdf;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FieldNameIndexTest {
+
+    private final FieldNameIndex index = FieldNameIndex.of(Arrays.asList("Signature1", "signature1", "SIGNATURE2", "Date", "Signature10"));
+
+    @Test
+    public void exactNameIsCaseSensitive() {
+        assertEquals(Collections.singleton("Signature1"), index.resolve(Collections.singletonList("Signature1")));
+        assertEquals(Collections.singleton("signature1"), index.resolve(Collections.singletonList("signature1")));
+        assertEquals(Collections.emptySet(), index.resolve(Collections.singletonList("SIGNATURE1")));
+        assertEquals(Collections.emptySet(), index.resolve(Collections.singletonList("date")));
+    }
+
+    @Test
+    public void exactNameIgnoringCase() {
+        assertEquals(new LinkedHashSet<>(Arrays.asList("Signature1", "signature1")), resolveIgnoringCase("SIGNATURE1"));
+        assertEquals(Collections.singleton("SIGNATURE2"), resolveIgnoringCase("signature2"));
+        assertEquals(Collections.singleton("Date"), resolveIgnoringCase("dATE"));
+    }
+
+    @Test
+    public void exactNameIsNotAPrefix() {
+        assertEquals(Collections.emptySet(), index.resolve(Collections.singletonList("Signature")));
+        assertEquals(Collections.emptySet(), resolveIgnoringCase("Signature100"));
+    }
+
+    @Test
+    public void patternIgnoresCase() {
+        Set<String> expected = new LinkedHashSet<>(Arrays.asList("Signature1", "signature1", "Signature10"));
+        assertEquals(expected, index.resolve(Collections.singletonList("SIGNATURE1*")));
+        assertEquals(expected, resolveIgnoringCase("SIGNATURE1*"));
+    }
+
+    @Test
+    public void containsIsExact() {
+        assertTrue(index.contains("Date"));
+        assertFalse(index.contains("date"));
+    }
+
+    private Set<String> resolveIgnoringCase(String fieldNameOrPattern) {
+        FieldPattern fieldPattern = FieldPattern.compile(fieldNameOrPattern);
+        return index.resolveEachIgnoringCase(Collections.singletonList(fieldPattern)).get(fieldPattern);
+    }
+
+}